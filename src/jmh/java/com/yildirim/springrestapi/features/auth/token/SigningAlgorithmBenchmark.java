@@ -0,0 +1,61 @@
+package com.yildirim.springrestapi.features.auth.token;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares sign and verify throughput of the supported {@link SigningAlgorithm}s, with the symmetric HS256 that
+ * tokens used to be signed with as a baseline.
+ * <p>
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SigningAlgorithmBenchmark {
+    @Param({"HS256", "ES256", "EdDSA"})
+    private String algorithm;
+    private SigningKeyManager signingKeyManager;
+    private SecretKey secretKey;
+    private JwtParser parser;
+    private String token;
+
+    @Setup
+    public void setup() {
+        if (algorithm.equals("HS256")) {
+            secretKey = Jwts.SIG.HS256.key().build();
+            parser = Jwts.parser().verifyWith(secretKey).build();
+        } else {
+            signingKeyManager = SigningKeyManager.inMemory(SigningAlgorithm.valueOf(algorithm));
+            parser = signingKeyManager.getParser();
+        }
+        token = sign();
+    }
+
+    @Benchmark
+    public String sign() {
+        var builder = Jwts.builder()
+                .id(UUID.randomUUID().toString())
+                .subject("benchmark")
+                .issuedAt(new Date())
+                .expiration(Date.from(Instant.now().plus(15, ChronoUnit.MINUTES)));
+        if (secretKey != null) {
+            return builder.signWith(secretKey, Jwts.SIG.HS256).compact();
+        }
+        return signingKeyManager.sign(builder);
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+}
@@ -0,0 +1,68 @@
+package com.yildirim.springrestapi.features.auth.token;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-request cost of validating an access token the way {@code JwtAuthenticationFilter} used to
+ * (three parser builds and signature verifications) against the single-pass {@link TokenService#validateToken(String)},
+ * with and without the {@link VerifiedTokenCache}.
+ * <p>
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TokenParsingBenchmark {
+    private SigningKeyManager signingKeyManager;
+    private TokenService tokenService;
+    private TokenService cachingTokenService;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setup() {
+        signingKeyManager = SigningKeyManager.inMemory(SigningAlgorithm.EdDSA);
+        tokenService = new TokenService(null, null, new VerifiedTokenCache(new SimpleMeterRegistry(), false, 0), signingKeyManager);
+        userDetails = User.withUsername("benchmark")
+                .password("n/a")
+                .authorities("REGULAR")
+                .build();
+        token = tokenService.generateToken(userDetails);
+        cachingTokenService = new TokenService(null, null, new VerifiedTokenCache(new SimpleMeterRegistry(), true, 1000), signingKeyManager);
+    }
+
+    @Benchmark
+    public void threePassValidation(Blackhole blackhole) {
+        // extractUsername in the filter, then extractUsername + isTokenExpired in isTokenValid
+        for (int i = 0; i < 3; i++) {
+            Claims claims = Jwts.parser()
+                    .verifyWith(signingKeyManager.getCurrentKey().publicKey())
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload();
+            blackhole.consume(claims);
+        }
+    }
+
+    @Benchmark
+    public boolean singlePassValidation() {
+        return tokenService.validateToken(token)
+                .map(parsedToken -> tokenService.isTokenValid(parsedToken, userDetails))
+                .orElse(false);
+    }
+
+    @Benchmark
+    public boolean cachedValidation() {
+        return cachingTokenService.validateToken(token)
+                .map(parsedToken -> cachingTokenService.isTokenValid(parsedToken, userDetails))
+                .orElse(false);
+    }
+}
@@ -0,0 +1,26 @@
+package com.yildirim.springrestapi.common.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries cache invalidations between the nodes of a deployment, so that a change made on one node drops the stale
+ * copies held in the local caches of all the others.
+ * <p>
+ * An invalidation is a region, usually a cache name, and a key within it. Publishing is expected to happen once the
+ * change is committed, and a node never receives its own invalidations.
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * Sends the invalidation to every other node
+     *
+     * @param key the key to drop, or null to drop the whole region
+     */
+    void publish(String region, String key);
+
+    /**
+     * Registers the handler that drops a key of the region from this node's cache. The handler receives null when the
+     * whole region has to be dropped.
+     */
+    void subscribe(String region, Consumer<String> handler);
+}
@@ -0,0 +1,22 @@
+package com.yildirim.springrestapi.common.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * For a single node, whose local caches are already invalidated in place, so there is nobody to tell
+ */
+@Component
+@ConditionalOnProperty(name = "application.cache.invalidation.bus", havingValue = "local", matchIfMissing = true)
+public class LocalCacheInvalidationBus implements CacheInvalidationBus {
+
+    @Override
+    public void publish(String region, String key) {
+    }
+
+    @Override
+    public void subscribe(String region, Consumer<String> handler) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.yildirim.springrestapi.common.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Publishes invalidations on a Redis pub/sub channel that every node subscribes to.
+ * <p>
+ * A message is the publishing node's id, the region and the key separated by {@code |}, for example
+ * {@code 3f2a...|users|8c41...}. An empty key drops the whole region. Each node has a random id, which it uses to skip
+ * the messages it published itself.
+ * <p>
+ * Pub/sub delivery is at most once, so a node that misses a message keeps the stale entry until its local TTL expires.
+ */
+@Component
+@ConditionalOnProperty(name = "application.cache.invalidation.bus", havingValue = "redis")
+public class RedisCacheInvalidationBus implements CacheInvalidationBus, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(RedisCacheInvalidationBus.class);
+    private static final char SEPARATOR = '|';
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Consumer<String>> handlers = new ConcurrentHashMap<>();
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final Counter published;
+    private final Counter received;
+
+    public RedisCacheInvalidationBus(
+            StringRedisTemplate redisTemplate,
+            RedisConnectionFactory connectionFactory,
+            MeterRegistry meterRegistry,
+            @Value("${application.cache.invalidation.channel:cache:invalidations}") String channel
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.published = Counter.builder("cache.invalidations")
+                .description("Cache invalidations sent to or received from other nodes")
+                .tag("direction", "published")
+                .register(meterRegistry);
+        this.received = Counter.builder("cache.invalidations")
+                .description("Cache invalidations sent to or received from other nodes")
+                .tag("direction", "received")
+                .register(meterRegistry);
+
+        this.listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.addMessageListener(this::onMessage, new ChannelTopic(channel));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @Override
+    public void publish(String region, String key) {
+        final String message = nodeId + SEPARATOR + region + SEPARATOR + (key == null ? "" : key);
+        try {
+            redisTemplate.convertAndSend(channel, message);
+            published.increment();
+        } catch (DataAccessException e) {
+            // The change itself is committed, the other nodes fall back to their local TTL
+            log.warn("Could not publish the invalidation of {} in {}", key, region, e);
+        }
+    }
+
+    @Override
+    public void subscribe(String region, Consumer<String> handler) {
+        handlers.put(region, handler);
+    }
+
+    private void onMessage(Message message, byte[] pattern) {
+        final String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        final int regionStart = body.indexOf(SEPARATOR) + 1;
+        final int keyStart = body.indexOf(SEPARATOR, regionStart) + 1;
+        if (regionStart == 0 || keyStart == 0 || body.startsWith(nodeId + SEPARATOR)) {
+            return;
+        }
+
+        final Consumer<String> handler = handlers.get(body.substring(regionStart, keyStart - 1));
+        if (handler == null) {
+            return;
+        }
+        received.increment();
+        // Keys may contain the separator, so everything after the region is the key
+        handler.accept(keyStart == body.length() ? null : body.substring(keyStart));
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        listenerContainer.destroy();
+    }
+}
@@ -0,0 +1,138 @@
+package com.yildirim.springrestapi.common.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A {@link Cache} with a local Caffeine near cache in front of an optional shared cache, usually Redis.
+ * <p>
+ * Reads are served from the near cache when possible, then from the shared cache, whose hits are copied into the
+ * near cache. Writes and evictions go to both tiers. Without a shared cache it behaves like a plain Caffeine cache.
+ * Null values are not cached.
+ * <p>
+ * Explicit writes ({@code @CachePut}) and evictions are also published on the {@link CacheInvalidationBus}, so the
+ * other nodes drop their near cached copy and read the new value from the shared tier or the database. Values loaded
+ * on a miss through {@link #get(Object, Callable)} are not, as they change nothing the other nodes may hold, so reads
+ * have to use {@code @Cacheable(sync = true)}. Keys must be strings or longs.
+ */
+public class TwoTierCache extends AbstractValueAdaptingCache {
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final Cache shared;
+    private final CacheInvalidationBus invalidationBus;
+
+    /**
+     * @param shared the shared tier, or null to only cache locally
+     */
+    public TwoTierCache(
+            String name,
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+            Cache shared,
+            CacheInvalidationBus invalidationBus
+    ) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.shared = shared;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(name, key -> {
+            if (key == null) {
+                local.invalidateAll();
+            } else {
+                local.invalidate(decodeKey(key));
+            }
+        });
+    }
+
+    private static String encodeKey(Object key) {
+        return switch (key) {
+            case Long id -> "l" + id;
+            case String id -> "s" + id;
+            default -> throw new IllegalArgumentException("Unsupported cache key type: " + key.getClass().getName());
+        };
+    }
+
+    private static Object decodeKey(String key) {
+        final String value = key.substring(1);
+        return key.charAt(0) == 'l' ? Long.valueOf(value) : value;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public com.github.benmanes.caffeine.cache.Cache<Object, Object> getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        final Object value = local.getIfPresent(key);
+        if (value != null || shared == null) {
+            return value;
+        }
+
+        final ValueWrapper wrapper = shared.get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            return null;
+        }
+        local.put(key, wrapper.get());
+        return wrapper.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) local.get(key, k -> {
+            final Object sharedValue = shared == null ? null : shared.get(k, Object.class);
+            if (sharedValue != null) {
+                return sharedValue;
+            }
+
+            try {
+                final T loaded = valueLoader.call();
+                if (loaded != null && shared != null) {
+                    shared.put(k, loaded);
+                }
+                return loaded;
+            } catch (Exception e) {
+                throw new ValueRetrievalException(k, valueLoader, e);
+            }
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        if (shared != null) {
+            shared.put(key, value);
+        }
+        local.put(key, value);
+        invalidationBus.publish(name, encodeKey(key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        if (shared != null) {
+            shared.evict(key);
+        }
+        local.invalidate(key);
+        invalidationBus.publish(name, encodeKey(key));
+    }
+
+    @Override
+    public void clear() {
+        if (shared != null) {
+            shared.clear();
+        }
+        local.invalidateAll();
+        invalidationBus.publish(name, null);
+    }
+}
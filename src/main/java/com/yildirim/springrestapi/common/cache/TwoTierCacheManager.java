@@ -0,0 +1,70 @@
+package com.yildirim.springrestapi.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Creates a {@link TwoTierCache} for every cache name, with a size and TTL bounded Caffeine near cache in front of
+ * the same-named cache of the shared {@link CacheManager}, if any. Changes are announced to the other nodes through
+ * the {@link CacheInvalidationBus}.
+ * <p>
+ * Puts and evictions made inside a transaction are applied once it commits, so a rolled back change never reaches
+ * the cache. This doesn't order a concurrent read against the commit: a read that loaded the old row before an update
+ * committed can still cache it after the update's eviction, and the stale value then stays until the entry expires.
+ * The TTLs bound how long that lasts.
+ */
+public class TwoTierCacheManager extends AbstractTransactionSupportingCacheManager {
+    private final Collection<String> cacheNames;
+    private final long localMaxSize;
+    private final Duration localTtl;
+    private final CacheManager sharedCacheManager;
+    private final CacheInvalidationBus invalidationBus;
+
+    /**
+     * @param sharedCacheManager the shared tier, or null to only cache locally
+     */
+    public TwoTierCacheManager(
+            Collection<String> cacheNames,
+            long localMaxSize,
+            Duration localTtl,
+            CacheManager sharedCacheManager,
+            CacheInvalidationBus invalidationBus
+    ) {
+        this.cacheNames = List.copyOf(cacheNames);
+        this.localMaxSize = localMaxSize;
+        this.localTtl = localTtl;
+        this.sharedCacheManager = sharedCacheManager;
+        this.invalidationBus = invalidationBus;
+        // Also makes the invalidations go out only once the change is visible to the other nodes
+        setTransactionAware(true);
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return cacheNames.stream().map(this::createCache).toList();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return createCache(name);
+    }
+
+    private TwoTierCache createCache(String name) {
+        return new TwoTierCache(
+                name,
+                Caffeine.newBuilder()
+                        .maximumSize(localMaxSize)
+                        .expireAfterWrite(localTtl)
+                        .recordStats()
+                        .build(),
+                sharedCacheManager == null ? null : sharedCacheManager.getCache(name),
+                invalidationBus
+        );
+    }
+}
@@ -2,10 +2,11 @@ package com.yildirim.springrestapi.common.config;
 
 import com.yildirim.springrestapi.features.auth.JpaUserDetailsService;
 import com.yildirim.springrestapi.features.auth.JwtAuthenticationFilter;
+import com.yildirim.springrestapi.features.auth.PasswordHashingService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -15,7 +16,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -27,14 +27,13 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class AppSecurityConfig {
     private final JpaUserDetailsService jpaUserDetailsService;
     private final JwtAuthenticationFilter jwtAuthFilter;
-
-    @Value("${server.servlet.context-path}")
-    private String apiPrefix;
+    private final PasswordEncoder passwordEncoder;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+        // Applies to every request: the servlet path never includes the context path, and the matchers below are
+        // relative to it
         http
-                .securityMatcher((request) -> request.getServletPath().startsWith(apiPrefix))
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(Customizer.withDefaults())
                 .authorizeHttpRequests((requests) -> requests
@@ -53,6 +52,11 @@ public class AppSecurityConfig {
                                 "/api/docs"
                         ).permitAll()
                         .requestMatchers("/admin/**").hasRole("ADMIN")
+                        // Handlers that act on behalf of the authenticated user
+                        .requestMatchers(HttpMethod.GET, "/posts/feed").authenticated()
+                        .requestMatchers("/posts/*/like").authenticated()
+                        .requestMatchers("/users/*/follow").authenticated()
+                        .requestMatchers(HttpMethod.POST, "/users/relationships").authenticated()
                         .anyRequest().permitAll()
                 )
                 .sessionManagement((session) ->
@@ -72,19 +76,17 @@ public class AppSecurityConfig {
         return http.build();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     /**
-     * Data access object which is responsible to fetch user details
+     * Data access object which is responsible to fetch user details.
+     * Shares the {@link PasswordHashingService} with the rest of the application, and upgrades hashes made with an
+     * outdated cost on successful login.
      */
     @Bean
     public AuthenticationManager daoProvider() {
         DaoAuthenticationProvider daoAuthProvider = new DaoAuthenticationProvider();
         daoAuthProvider.setUserDetailsService(jpaUserDetailsService);
-        daoAuthProvider.setPasswordEncoder(passwordEncoder());
+        daoAuthProvider.setUserDetailsPasswordService(jpaUserDetailsService);
+        daoAuthProvider.setPasswordEncoder(passwordEncoder);
 
         return new ProviderManager(daoAuthProvider);
     }
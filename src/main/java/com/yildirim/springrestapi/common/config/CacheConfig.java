@@ -0,0 +1,73 @@
+package com.yildirim.springrestapi.common.config;
+
+import com.yildirim.springrestapi.common.cache.CacheInvalidationBus;
+import com.yildirim.springrestapi.common.cache.TwoTierCache;
+import com.yildirim.springrestapi.common.cache.TwoTierCacheManager;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Application caches: a Caffeine near cache on every node, in front of Redis when
+ * {@code application.cache.redis.enabled} is set. Only DTOs are cached, never entities. Near caches of other nodes
+ * are invalidated through the {@link CacheInvalidationBus} selected by {@code application.cache.invalidation.bus}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    /**
+     * {@code UserResponseDto} by user id
+     */
+    public static final String USERS = "users";
+    /**
+     * User id by username
+     */
+    public static final String USER_IDS = "user-ids";
+    /**
+     * {@code PostResponseDto} by post id
+     */
+    public static final String POSTS = "posts";
+
+    @Bean
+    public CacheManager cacheManager(
+            ObjectProvider<RedisConnectionFactory> redisConnectionFactory,
+            CacheInvalidationBus invalidationBus,
+            @Value("${application.cache.local.max-size:10000}") long localMaxSize,
+            @Value("${application.cache.local.ttl:10m}") Duration localTtl,
+            @Value("${application.cache.redis.enabled:false}") boolean redisEnabled,
+            @Value("${application.cache.redis.ttl:1h}") Duration redisTtl
+    ) {
+        final List<String> cacheNames = List.of(USERS, USER_IDS, POSTS);
+        RedisCacheManager sharedCacheManager = null;
+        if (redisEnabled) {
+            sharedCacheManager = RedisCacheManager.builder(redisConnectionFactory.getObject())
+                    .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig()
+                            .entryTtl(redisTtl)
+                            .disableCachingNullValues())
+                    .initialCacheNames(Set.copyOf(cacheNames))
+                    .build();
+            sharedCacheManager.afterPropertiesSet();
+        }
+        return new TwoTierCacheManager(cacheNames, localMaxSize, localTtl, sharedCacheManager, invalidationBus);
+    }
+
+    /**
+     * Publishes the hit, miss and eviction counts of each near cache under its cache name
+     */
+    @Bean
+    public CacheMeterBinderProvider<TwoTierCache> twoTierCacheMeterBinderProvider() {
+        return (cache, tags) -> new CaffeineCacheMetrics<>(cache.getNativeCache(), cache.getName(), tags);
+    }
+}
@@ -0,0 +1,43 @@
+package com.yildirim.springrestapi.common.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a page ordered by {@code (createdAt, id)}, handed to clients as an opaque token.
+ * The next page starts right after this row, so fetching it costs the same no matter how deep the client scrolled.
+ */
+public record Cursor(LocalDateTime createdAt, String id) {
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        final String value = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws InvalidCursorException if the token wasn't produced by {@link #encode()}
+     */
+    public static Cursor decode(String token) {
+        try {
+            final String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            final int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidCursorException();
+            }
+            return new Cursor(LocalDateTime.parse(value.substring(0, separator)), value.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException();
+        }
+    }
+
+    public long idAsLong() {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException();
+        }
+    }
+}
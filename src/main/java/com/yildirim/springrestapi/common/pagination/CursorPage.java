@@ -0,0 +1,26 @@
+package com.yildirim.springrestapi.common.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of items in keyset order. {@code nextCursor} is null on the last page.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    /**
+     * Builds a page from up to {@code size + 1} rows, where the extra row only signals that there is a next page.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, Cursor> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+
+        final List<T> items = rows.subList(0, size);
+        return new CursorPage<>(List.copyOf(items), cursorOf.apply(items.get(size - 1)).encode());
+    }
+
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).toList(), nextCursor);
+    }
+}
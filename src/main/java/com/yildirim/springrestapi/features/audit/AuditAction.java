@@ -0,0 +1,7 @@
+package com.yildirim.springrestapi.features.audit;
+
+public enum AuditAction {
+    CREATE,
+    UPDATE,
+    DELETE
+}
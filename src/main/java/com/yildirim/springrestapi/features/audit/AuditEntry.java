@@ -0,0 +1,29 @@
+package com.yildirim.springrestapi.features.audit;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A committed change to an audited entity, waiting in the {@link AuditTrailWriter}'s buffer
+ *
+ * @param actor   username of the authenticated user who made the change, null for system changes
+ * @param changes changed fields by name, in property order
+ */
+public record AuditEntry(
+        String entityType,
+        String entityId,
+        AuditAction action,
+        String actor,
+        LocalDateTime changedAt,
+        Map<String, Change> changes
+) {
+
+    /**
+     * Values are captured as strings when the change commits, so later changes to the entity can't alter them
+     *
+     * @param from null for created entities
+     * @param to   null for deleted entities
+     */
+    public record Change(String from, String to) {
+    }
+}
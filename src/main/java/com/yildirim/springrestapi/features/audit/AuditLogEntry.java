@@ -0,0 +1,44 @@
+package com.yildirim.springrestapi.features.audit;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A row of the append-only audit log. Rows are only ever inserted, by {@link AuditTrailWriter} through JDBC.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(
+        name = "audit_log",
+        indexes = @Index(name = "idx_audit_entity", columnList = "entity_type, entity_id, id")
+)
+public class AuditLogEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entity_type", nullable = false, length = 32)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false, length = 64)
+    private String entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private AuditAction action;
+
+    private String actor;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    /**
+     * JSON object of the changed fields, e.g. {@code {"username":{"from":"old","to":"new"}}}
+     */
+    @Lob
+    private String changes;
+}
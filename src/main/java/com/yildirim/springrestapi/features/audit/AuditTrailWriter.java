@@ -0,0 +1,205 @@
+package com.yildirim.springrestapi.features.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yildirim.springrestapi.common.util.RingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Collects {@link AuditEntry audit entries} in a lock-free {@link RingBuffer} and writes them to the
+ * {@link AuditLogEntry audit log} from a single background thread, with one multi-row {@code INSERT} per batch.
+ * <p>
+ * Appending an entry is a single compare-and-set, so auditing adds next to nothing to the request that made the
+ * change. When the buffer is full, because the database can't keep up or is down, appending threads wait for the
+ * writer to free up room instead of dropping entries. A failed batch is retried until it's written.
+ * <p>
+ * The writer is stopped before the data source is closed on shutdown, and writes whatever is left in the buffer first.
+ */
+@Component
+public class AuditTrailWriter implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(AuditTrailWriter.class);
+    private static final String INSERT = "insert into audit_log (entity_type, entity_id, action, actor, changed_at, changes) values ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?)";
+    private static final int COLUMNS = 6;
+    private static final long MAX_APPEND_WAIT_NANOS = Duration.ofMillis(1).toNanos();
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final RingBuffer<AuditEntry> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Duration retryBackoff;
+    // Statement for a full batch, the most common size under load
+    private final String fullBatchInsert;
+    private final Counter backpressured;
+    private final DistributionSummary writtenRows;
+    private volatile boolean running;
+    private volatile Thread writer;
+
+    public AuditTrailWriter(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${application.audit.buffer-size:8192}") int bufferSize,
+            @Value("${application.audit.batch-size:256}") int batchSize,
+            @Value("${application.audit.flush-interval:PT0.2S}") Duration flushInterval,
+            @Value("${application.audit.retry-backoff:PT1S}") Duration retryBackoff
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.buffer = new RingBuffer<>(bufferSize);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.retryBackoff = retryBackoff;
+        this.fullBatchInsert = insertStatement(batchSize);
+        this.backpressured = Counter.builder("audit.buffer.backpressure")
+                .description("Audit entries whose append had to wait for room in the buffer")
+                .register(meterRegistry);
+        this.writtenRows = DistributionSummary.builder("audit.write.rows")
+                .description("Audit entries written per batch")
+                .register(meterRegistry);
+        Gauge.builder("audit.buffer.size", buffer, RingBuffer::size)
+                .description("Audit entries waiting to be written")
+                .register(meterRegistry);
+    }
+
+    private static String insertStatement(int rows) {
+        return INSERT + String.join(", ", Collections.nCopies(rows, ROW));
+    }
+
+    /**
+     * Adds the entry to the buffer, waiting for room if it is full
+     */
+    public void append(AuditEntry entry) {
+        if (buffer.offer(entry)) {
+            // A parked writer is only woken up once there is a full batch, otherwise it wakes up by itself
+            if (buffer.size() >= batchSize) {
+                wakeUpWriter();
+            }
+            return;
+        }
+
+        backpressured.increment();
+        long waitNanos = 1_000;
+        while (!buffer.offer(entry)) {
+            if (!running) {
+                // Nobody is left to drain the buffer
+                write(List.of(entry));
+                return;
+            }
+            wakeUpWriter();
+            LockSupport.parkNanos(waitNanos);
+            waitNanos = Math.min(waitNanos * 2, MAX_APPEND_WAIT_NANOS);
+        }
+    }
+
+    private void wakeUpWriter() {
+        final Thread thread = writer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void run() {
+        final List<AuditEntry> batch = new ArrayList<>(batchSize);
+        while (running || buffer.size() > 0) {
+            if (buffer.drainTo(batch, batchSize) == 0) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+                continue;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<AuditEntry> batch) {
+        final String sql = batch.size() == batchSize ? fullBatchInsert : insertStatement(batch.size());
+        final Object[] args = new Object[batch.size() * COLUMNS];
+        int i = 0;
+        for (AuditEntry entry : batch) {
+            args[i++] = entry.entityType();
+            args[i++] = entry.entityId();
+            args[i++] = entry.action().name();
+            args[i++] = entry.actor();
+            args[i++] = Timestamp.valueOf(entry.changedAt());
+            args[i++] = toJson(entry);
+        }
+
+        while (true) {
+            try {
+                jdbcTemplate.update(sql, args);
+                writtenRows.record(batch.size());
+                return;
+            } catch (DataAccessException e) {
+                if (!running) {
+                    log.error("Could not write {} audit entries while shutting down, dropping them: {}", batch.size(), batch, e);
+                    return;
+                }
+                log.warn("Could not write {} audit entries, retrying in {}", batch.size(), retryBackoff, e);
+                LockSupport.parkNanos(retryBackoff.toNanos());
+            }
+        }
+    }
+
+    private String toJson(AuditEntry entry) {
+        try {
+            return objectMapper.writeValueAsString(entry.changes());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the changes of " + entry, e);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = Thread.ofPlatform()
+                .name("audit-writer")
+                .daemon()
+                .start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        final Thread thread = writer;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the web server, so no request can append once the writer is gone
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -0,0 +1,146 @@
+package com.yildirim.springrestapi.features.audit;
+
+import com.yildirim.springrestapi.features.post.Post;
+import com.yildirim.springrestapi.features.user.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Records the field level changes of {@link User} and {@link Post} entities in the audit trail.
+ * <p>
+ * Registered as a Hibernate post-commit listener, so only committed changes are recorded, and the changes come from
+ * the entity's loaded and flushed state without any extra query. Associations and collections are not recorded, and
+ * neither are changes made with bulk updates, such as the like and follower counts. Password hashes are redacted.
+ */
+@Component
+public class EntityAuditListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+    private static final Set<Class<?>> AUDITED = Set.of(User.class, Post.class);
+    // Maintained by auditing itself, they change with every update
+    private static final Set<String> IGNORED = Set.of("updatedAt", "modifiedBy");
+    private static final Set<String> REDACTED = Set.of("password");
+    private static final String REDACTED_VALUE = "[redacted]";
+    private final AuditTrailWriter writer;
+
+    public EntityAuditListener(EntityManagerFactory entityManagerFactory, AuditTrailWriter writer) {
+        this.writer = writer;
+        final EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return AUDITED.contains(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (requiresPostCommitHandling(event.getPersister())) {
+            record(event.getPersister(), event.getId(), AuditAction.CREATE, null, event.getState(), null);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (requiresPostCommitHandling(event.getPersister())) {
+            record(event.getPersister(), event.getId(), AuditAction.UPDATE, event.getOldState(), event.getState(), event.getDirtyProperties());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (requiresPostCommitHandling(event.getPersister())) {
+            record(event.getPersister(), event.getId(), AuditAction.DELETE, event.getDeletedState(), null, null);
+        }
+    }
+
+    /**
+     * @param dirtyProperties indexes of the changed properties, or null to compare the states
+     */
+    private void record(EntityPersister persister, Object id, AuditAction action, Object[] oldState, Object[] state, int[] dirtyProperties) {
+        final Map<String, AuditEntry.Change> changes = diff(persister, oldState, state, dirtyProperties);
+        if (changes.isEmpty() && action == AuditAction.UPDATE) {
+            return;
+        }
+
+        writer.append(new AuditEntry(
+                persister.getMappedClass().getSimpleName(),
+                String.valueOf(id),
+                action,
+                currentActor(),
+                LocalDateTime.now(),
+                changes
+        ));
+    }
+
+    private static Map<String, AuditEntry.Change> diff(EntityPersister persister, Object[] oldState, Object[] state, int[] dirtyProperties) {
+        final String[] names = persister.getPropertyNames();
+        final Type[] types = persister.getPropertyTypes();
+        final Map<String, AuditEntry.Change> changes = new LinkedHashMap<>();
+        final int count = dirtyProperties == null ? names.length : dirtyProperties.length;
+        for (int i = 0; i < count; i++) {
+            final int property = dirtyProperties == null ? i : dirtyProperties[i];
+            final String name = names[property];
+            if (types[property].isAssociationType() || IGNORED.contains(name)) {
+                continue;
+            }
+
+            final Object from = oldState == null ? null : oldState[property];
+            final Object to = state == null ? null : state[property];
+            if (Objects.equals(from, to)) {
+                continue;
+            }
+            changes.put(name, new AuditEntry.Change(format(name, from), format(name, to)));
+        }
+        return changes;
+    }
+
+    private static String format(String name, Object value) {
+        if (value == null) {
+            return null;
+        }
+        return REDACTED.contains(name) ? REDACTED_VALUE : value.toString();
+    }
+
+    private static String currentActor() {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // Nothing was committed, so there is nothing to record
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Nothing was committed, so there is nothing to record
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // Nothing was committed, so there is nothing to record
+    }
+}
@@ -2,6 +2,8 @@ package com.yildirim.springrestapi.features.auth;
 
 import com.yildirim.springrestapi.features.auth.dto.JwtAuthenticationResponseDto;
 import com.yildirim.springrestapi.features.auth.dto.UsernamePwdLoginDto;
+import com.yildirim.springrestapi.features.auth.ratelimit.LoginThrottle;
+import com.yildirim.springrestapi.features.auth.token.SigningKeyManager;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +13,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -19,6 +22,8 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class AuthenticationController {
     private final AuthenticationService authService;
+    private final SigningKeyManager signingKeyManager;
+    private final LoginThrottle loginThrottle;
 
     @PostMapping("/public/login")
     public ResponseEntity<JwtAuthenticationResponseDto> login(
@@ -31,7 +36,12 @@ public class AuthenticationController {
             throw new IllegalStateException("User is already authenticated");
         }
 
-        return ResponseEntity.ok(authService.authenticate(loginDto, request, response));
+        // Throttled outside the service's transaction, so a rejected attempt never touches the database
+        loginThrottle.acquire(loginDto.username(), request);
+        var authenticated = authService.authenticate(loginDto, request, response);
+        loginThrottle.onSuccess(loginDto.username());
+
+        return ResponseEntity.ok(authenticated);
     }
 
     @PostMapping("/public/logout")
@@ -44,6 +54,14 @@ public class AuthenticationController {
         return ResponseEntity.ok("Logged out successfully");
     }
 
+    /**
+     * Public keys that tokens are signed with, for verifying tokens without calling back to this node
+     */
+    @GetMapping("/public/jwks.json")
+    public Map<String, Object> jwks() {
+        return signingKeyManager.getJwks();
+    }
+
     @PostMapping("/refresh-token")
     public JwtAuthenticationResponseDto refreshToken(
             HttpServletRequest request,
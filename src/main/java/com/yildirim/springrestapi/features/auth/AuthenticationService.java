@@ -2,14 +2,13 @@ package com.yildirim.springrestapi.features.auth;
 
 import com.yildirim.springrestapi.features.auth.dto.JwtAuthenticationResponseDto;
 import com.yildirim.springrestapi.features.auth.dto.UsernamePwdLoginDto;
-import com.yildirim.springrestapi.features.auth.token.Token;
-import com.yildirim.springrestapi.features.auth.token.TokenRepository;
+import com.yildirim.springrestapi.features.auth.token.ParsedToken;
 import com.yildirim.springrestapi.features.auth.token.TokenService;
-import com.yildirim.springrestapi.features.auth.token.TokenType;
 import com.yildirim.springrestapi.features.user.User;
 import com.yildirim.springrestapi.features.user.UserEvents;
 import com.yildirim.springrestapi.features.user.UserRepository;
 import com.yildirim.springrestapi.features.user.dto.UserResponseDto;
+import com.yildirim.springrestapi.features.user.outbox.DispatchedUserEvent;
 import com.yildirim.springrestapi.features.user.exceptions.UserNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -36,20 +35,9 @@ public class AuthenticationService implements LogoutHandler {
     private static final Logger log = LoggerFactory.getLogger(AuthenticationService.class);
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final TokenRepository tokenRepository;
     private final AuthenticationManager authenticationManager;
     private final TokenService tokenService;
 
-    public boolean isValidPassword(String pwd) {
-        if (pwd == null) {
-            return false;
-        }
-
-        // Password must be at least 8 characters, contain at least one digit,
-        // one upper case letter, one lower case letter, and one special character
-        return pwd.matches("^(?=.*[a-z])(?=.*[A-Z])(?=.*\\\\d)(?=.*[@#$%^&+=]).{8,20}$");
-    }
-
     public String encodePwd(String pwd) {
         return passwordEncoder.encode(pwd);
     }
@@ -79,48 +67,50 @@ public class AuthenticationService implements LogoutHandler {
 
         // Save the refresh token in the database and in the cookies
         response.addCookie(refreshCookie);
-        saveUserToken(user, refreshCookie.getValue());
+        tokenService.saveRefreshToken(user, refreshCookie.getValue());
 
         response.setHeader("X-Access-Token", accessToken);
 
         return new JwtAuthenticationResponseDto(new UserResponseDto(user));
     }
 
-    private void saveUserToken(User user, String jwtStr) {
-        var token = Token.builder()
-                .user(user)
-                .tokenStr(jwtStr)
-                .tokenType(TokenType.COOKIE)
-                .expired(false)
-                .revoked(false)
-                .build();
-        tokenRepository.save(token);
-    }
-
+    /**
+     * Issues a new access token and rotates the refresh token cookie.
+     * The user is loaded by id, so a refresh token issued before the account was disabled, deleted or had its
+     * security version bumped is refused, and the new tokens carry the user's current claims.
+     */
     public String refreshToken(
             HttpServletRequest request,
             HttpServletResponse response
     ) {
         final String accessToken = TokenService.extractAuthTokenFromHeader(request);
-        tokenService.revokeToken(accessToken, false);
+        tokenService.revokeToken(accessToken);
         final String refreshToken = TokenService.extractRefreshTokenFromCookies(request);
 
-        if (refreshToken == null) {
+        final ParsedToken parsedToken = tokenService.validateToken(refreshToken).orElse(null);
+        if (parsedToken == null || parsedToken.subject() == null) {
             response.setStatus(HttpStatus.UNAUTHORIZED.value());
             return null;
         }
 
-        final String username = tokenService.extractUsername(refreshToken);
-        if (username != null) {
-            var user = this.userRepository.getByUsername(username)
-                    .orElseThrow();
-            SecurityUser securityUser = new SecurityUser(user);
+        final String userId = parsedToken.claim(TokenPrincipal.USER_ID_CLAIM, String.class);
+        final User user = userId == null ? null : userRepository.findById(userId).orElse(null);
+        if (user == null || !TokenService.isIssuedToCurrent(parsedToken, user)) {
+            tokenService.revokeFamily(parsedToken);
+            response.addCookie(tokenService.generateExpiredRefreshTokenCookie());
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            return null;
+        }
 
-            if (tokenService.isTokenValid(refreshToken, securityUser)) {
-                return tokenService.generateToken(securityUser);
-            }
+        final var rotatedCookie = tokenService.rotateRefreshToken(parsedToken, user).orElse(null);
+        if (rotatedCookie == null) {
+            response.addCookie(tokenService.generateExpiredRefreshTokenCookie());
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            return null;
         }
-        return null;
+
+        response.addCookie(rotatedCookie);
+        return tokenService.generateToken(user);
     }
 
     @Override
@@ -134,29 +124,28 @@ public class AuthenticationService implements LogoutHandler {
             return;
         }
         response.addCookie(tokenService.generateExpiredRefreshTokenCookie());
-        var storedToken = tokenRepository.findByTokenStr(refreshToken)
+        var storedToken = tokenService.validateToken(refreshToken)
+                .filter(tokenService::isTokenActive)
                 .orElse(null);
         if (storedToken != null) {
-            tokenService.revokeToken(storedToken.getTokenStr(), true);
+            tokenService.revokeToken(refreshToken);
             SecurityContextHolder.clearContext();
         }
     }
 
 
+    /**
+     * Runs on the outbox dispatcher once the password change is committed, and revokes the refresh tokens. Access
+     * tokens issued before the change are rejected by {@link JwtAuthenticationFilter}, which compares their security
+     * version with the one of the reloaded user.
+     */
     @EventListener
-    public void onPasswordChangedEvent(UserEvents.PasswordChangedEvent event) {
-        var user = event.user();
-        var storedTokens = tokenRepository.findAllValidTokensByUser(user.getId());
-        if (storedTokens.isEmpty()) {
+    public void onPasswordChangedEvent(DispatchedUserEvent<UserEvents.PasswordChangedEvent> dispatched) {
+        var user = dispatched.event().user();
+        final int revokedTokens = tokenService.revokeAllUserTokens(user);
+        if (revokedTokens == 0) {
             return;
         }
-        storedTokens.forEach(token -> {
-            token.setExpired(true);
-            token.setRevoked(true);
-        });
-        tokenRepository.saveAll(storedTokens);
-
-        // Log out user
-        SecurityContextHolder.clearContext();
+        log.info("Revoked {} tokens of user {} after a password change", revokedTokens, user.getId());
     }
 }
@@ -3,9 +3,11 @@ package com.yildirim.springrestapi.features.auth;
 import com.yildirim.springrestapi.features.user.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
 /**
@@ -13,10 +15,13 @@ import org.springframework.stereotype.Service;
  * <p>
  * The implemented {@link UserDetailsService#loadUserByUsername(String)} method needs to return a {@link UserDetails} interface,
  * we achieve this through retrieving a {@link com.yildirim.springrestapi.features.user.User} and mapping it to a {@link SecurityUser}, which implements the UserDetails interface.
+ * <p>
+ * It also implements {@link UserDetailsPasswordService}, which lets spring security store the rehashed password when a
+ * user logs in with a hash made with an outdated cost.
  */
 @RequiredArgsConstructor
 @Service
-public class JpaUserDetailsService implements UserDetailsService {
+public class JpaUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
 
     @Override
@@ -26,4 +31,14 @@ public class JpaUserDetailsService implements UserDetailsService {
                 .map(SecurityUser::new)
                 .orElseThrow(() -> new UsernameNotFoundException("Username not found: " + username));
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        var user = userRepository
+                .getByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("Username not found: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        return new SecurityUser(userRepository.save(user));
+    }
+}
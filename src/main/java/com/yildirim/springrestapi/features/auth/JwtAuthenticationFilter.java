@@ -1,5 +1,6 @@
 package com.yildirim.springrestapi.features.auth;
 
+import com.yildirim.springrestapi.features.auth.token.ParsedToken;
 import com.yildirim.springrestapi.features.auth.token.TokenService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -8,8 +9,10 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -20,7 +23,8 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final TokenService jwtService;
-    private final JpaUserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final SecurityVersionRegistry securityVersions;
 
     @Override
     protected void doFilterInternal(
@@ -30,17 +34,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         // Extract the JWT token from the header
         final String jwt = TokenService.extractAuthTokenFromHeader(request);
-        final String username;
-
         if (jwt == null) {
             filterChain.doFilter(request, response); // Continue to the next filter
             return;
         }
-        username = jwtService.extractUsername(jwt); // Extract the username from the JWT token
+
+        // Verify the token once, everything below works on the parsed claims
+        final ParsedToken parsedToken = jwtService.validateToken(jwt).orElse(null);
+        if (parsedToken == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        final String username = parsedToken.subject();
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            // Check the database for the user with the extracted username
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            UserDetails userDetails = resolvePrincipal(parsedToken);
+            if (userDetails != null && userDetails.isEnabled() && jwtService.isTokenValid(parsedToken, userDetails)) {
                 // If the token is valid, set the authentication in the SecurityContext
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
@@ -52,10 +61,39 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         new WebAuthenticationDetailsSource().buildDetails(request)
                 );
 
-                SecurityContextHolder.createEmptyContext().setAuthentication(authToken);
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authToken);
+                SecurityContextHolder.setContext(context);
             }
 
         }
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Builds the principal from the token claims, and only falls back to the database (through the
+     * {@link PrincipalCache}) when the token predates the claims or the user's latest security relevant change.
+     *
+     * @return null if the user is gone, or the token was issued before the user's current security version
+     */
+    private UserDetails resolvePrincipal(ParsedToken parsedToken) {
+        final TokenPrincipal principal = TokenPrincipal.from(parsedToken);
+        if (principal != null && !securityVersions.isStale(principal.getId(), principal.getSecurityVersion())) {
+            return principal;
+        }
+
+        final UserDetails userDetails;
+        try {
+            userDetails = this.principalCache.loadUserByUsername(parsedToken.subject());
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+        // A password change keeps the username, so the subject alone doesn't tell an outdated token apart
+        final Number tokenVersion = parsedToken.claim(TokenPrincipal.SECURITY_VERSION_CLAIM, Number.class);
+        if (userDetails instanceof SecurityUser securityUser
+                && (tokenVersion == null ? 0 : tokenVersion.intValue()) < securityUser.getUser().getSecurityVersion()) {
+            return null;
+        }
+        return userDetails;
+    }
 }
@@ -0,0 +1,131 @@
+package com.yildirim.springrestapi.features.auth;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * The application's single {@link PasswordEncoder}, used for login, registration and password changes.
+ * <p>
+ * The BCrypt cost is calibrated on startup, so that hashing takes about {@code target-duration} on this hardware,
+ * unless a fixed {@code strength} is configured. Hashes are computed on a dedicated, bounded executor instead of the
+ * request thread; when its queue is full callers are rejected with a {@link TooManyRequestsException}, so a login
+ * burst can't saturate every CPU. Hashes made with a lower cost are upgraded on the next successful login.
+ */
+@Component
+public class PasswordHashingService implements PasswordEncoder, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingService.class);
+    private static final int MIN_STRENGTH = 10;
+    private static final int MAX_STRENGTH = 16;
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public PasswordHashingService(
+            MeterRegistry meterRegistry,
+            @Value("${application.security.password-hashing.strength:0}") int strength,
+            @Value("${application.security.password-hashing.target-duration:250ms}") Duration targetDuration,
+            @Value("${application.security.password-hashing.threads:0}") int threads,
+            @Value("${application.security.password-hashing.queue-capacity:64}") int queueCapacity
+    ) {
+        final int calibratedStrength = strength > 0 ? strength : calibrate(targetDuration);
+        final int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        log.info("Hashing passwords with BCrypt strength {} on {} threads", calibratedStrength, poolSize);
+
+        this.encoder = new BCryptPasswordEncoder(calibratedStrength);
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hashing-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.encodeTimer = Timer.builder("password.hash")
+                .tag("operation", "encode")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hash")
+                .tag("operation", "matches")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("password.hash.queue", executor, pool -> pool.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Raises the cost from {@value #MIN_STRENGTH} for as long as a single hash stays under the target duration.
+     * Each step doubles the time a hash takes.
+     */
+    private static int calibrate(Duration targetDuration) {
+        int strength = MIN_STRENGTH;
+        while (strength < MAX_STRENGTH) {
+            final long start = System.nanoTime();
+            new BCryptPasswordEncoder(strength).encode("calibration");
+            final long elapsed = System.nanoTime() - start;
+            if (elapsed * 2 > targetDuration.toNanos()) {
+                break;
+            }
+            strength++;
+        }
+        return strength;
+    }
+
+    private <T> T hash(Timer timer, Supplier<T> task) {
+        final Future<T> future;
+        try {
+            future = executor.submit(() -> timer.record(task));
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("Too many concurrent password checks, try again later");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash(encodeTimer, () -> encoder.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash(matchesTimer, () -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * @return true if the hash was made with a lower cost than the current one
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return encoder.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
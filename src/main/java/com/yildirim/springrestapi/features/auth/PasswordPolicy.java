@@ -0,0 +1,117 @@
+package com.yildirim.springrestapi.features.auth;
+
+import com.yildirim.springrestapi.features.user.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Checks passwords against the configured rules in a single pass over their characters.
+ * <p>
+ * Length and character class rules are configured under {@code application.security.password-policy}. Passwords are
+ * also rejected if they appear, case-insensitively, in the blocklist of common and breached passwords, which is kept
+ * as a sorted array and searched with a binary search.
+ */
+@Component
+public class PasswordPolicy {
+    private final int minLength;
+    private final int maxLength;
+    private final boolean requireLowercase;
+    private final boolean requireUppercase;
+    private final boolean requireDigit;
+    private final String specialCharacters;
+    private final String[] blocklist;
+
+    public PasswordPolicy(
+            @Value("${application.security.password-policy.min-length:" + User.MIN_PASSWORD_LEN + "}") int minLength,
+            @Value("${application.security.password-policy.max-length:" + User.MAX_PASSWORD_LEN + "}") int maxLength,
+            @Value("${application.security.password-policy.require-lowercase:true}") boolean requireLowercase,
+            @Value("${application.security.password-policy.require-uppercase:true}") boolean requireUppercase,
+            @Value("${application.security.password-policy.require-digit:true}") boolean requireDigit,
+            @Value("${application.security.password-policy.special-characters:@#$%^&+=}") String specialCharacters,
+            @Value("${application.security.password-policy.blocklist:classpath:security/common-passwords.txt}") Resource blocklist
+    ) {
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.requireLowercase = requireLowercase;
+        this.requireUppercase = requireUppercase;
+        this.requireDigit = requireDigit;
+        this.specialCharacters = specialCharacters;
+        this.blocklist = loadBlocklist(blocklist);
+    }
+
+    private static String[] loadBlocklist(Resource resource) {
+        if (resource == null || !resource.exists()) {
+            return new String[0];
+        }
+
+        try (var reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            return reader.lines()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .map(line -> line.toLowerCase(Locale.ROOT))
+                    .distinct()
+                    .sorted()
+                    .toArray(String[]::new);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load the password blocklist", e);
+        }
+    }
+
+    /**
+     * @return the rules the password breaks, empty if it is valid
+     */
+    public Set<PasswordViolation> validate(String password) {
+        final Set<PasswordViolation> violations = EnumSet.noneOf(PasswordViolation.class);
+        if (password == null) {
+            violations.add(PasswordViolation.TOO_SHORT);
+            return violations;
+        }
+
+        boolean hasLowercase = false;
+        boolean hasUppercase = false;
+        boolean hasDigit = false;
+        boolean hasSpecial = specialCharacters.isEmpty();
+        for (int i = 0; i < password.length(); i++) {
+            final char c = password.charAt(i);
+            if (Character.isLowerCase(c)) {
+                hasLowercase = true;
+            } else if (Character.isUpperCase(c)) {
+                hasUppercase = true;
+            } else if (Character.isDigit(c)) {
+                hasDigit = true;
+            } else if (specialCharacters.indexOf(c) >= 0) {
+                hasSpecial = true;
+            }
+        }
+
+        if (password.length() < minLength) violations.add(PasswordViolation.TOO_SHORT);
+        if (password.length() > maxLength) violations.add(PasswordViolation.TOO_LONG);
+        if (requireLowercase && !hasLowercase) violations.add(PasswordViolation.MISSING_LOWERCASE);
+        if (requireUppercase && !hasUppercase) violations.add(PasswordViolation.MISSING_UPPERCASE);
+        if (requireDigit && !hasDigit) violations.add(PasswordViolation.MISSING_DIGIT);
+        if (!hasSpecial) violations.add(PasswordViolation.MISSING_SPECIAL);
+        if (isBlocked(password)) violations.add(PasswordViolation.COMMON_PASSWORD);
+
+        return violations;
+    }
+
+    public boolean isValid(String password) {
+        return validate(password).isEmpty();
+    }
+
+    private boolean isBlocked(String password) {
+        return blocklist.length > 0
+                && Arrays.binarySearch(blocklist, password.toLowerCase(Locale.ROOT)) >= 0;
+    }
+}
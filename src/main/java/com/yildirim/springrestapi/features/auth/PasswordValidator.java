@@ -6,10 +6,21 @@ import lombok.RequiredArgsConstructor;
 
 @RequiredArgsConstructor
 public class PasswordValidator implements ConstraintValidator<ValidPassword, String> {
-    private final AuthenticationService authService;
+    private final PasswordPolicy passwordPolicy;
 
     @Override
     public boolean isValid(String pwd, ConstraintValidatorContext context) {
-        return authService.isValidPassword(pwd);
+        var violations = passwordPolicy.validate(pwd);
+        if (violations.isEmpty()) {
+            return true;
+        }
+
+        // Report every broken rule instead of the generic message
+        context.disableDefaultConstraintViolation();
+        violations.forEach(violation -> context
+                .buildConstraintViolationWithTemplate(violation.getMessage())
+                .addConstraintViolation()
+        );
+        return false;
     }
 }
@@ -0,0 +1,21 @@
+package com.yildirim.springrestapi.features.auth;
+
+public enum PasswordViolation {
+    TOO_SHORT("Password is too short"),
+    TOO_LONG("Password is too long"),
+    MISSING_LOWERCASE("Password must contain a lower case letter"),
+    MISSING_UPPERCASE("Password must contain an upper case letter"),
+    MISSING_DIGIT("Password must contain a digit"),
+    MISSING_SPECIAL("Password must contain a special character"),
+    COMMON_PASSWORD("Password is too common");
+
+    private final String message;
+
+    PasswordViolation(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
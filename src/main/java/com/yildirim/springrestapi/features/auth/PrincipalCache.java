@@ -0,0 +1,124 @@
+package com.yildirim.springrestapi.features.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yildirim.springrestapi.common.cache.CacheInvalidationBus;
+import com.yildirim.springrestapi.features.user.User;
+import com.yildirim.springrestapi.features.user.UserEvents;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * A bounded, TTL based cache of principals keyed by username, which sits in front of {@link JpaUserDetailsService}.
+ * <p>
+ * {@link JwtAuthenticationFilter} resolves the principal through this cache, so an authenticated request only hits the
+ * database when the entry is missing or expired. Entries are evicted when the user's password, username or any other
+ * field changes, on this node right away and on the other nodes through the {@link CacheInvalidationBus} once the
+ * change is committed. Hit, miss and eviction counts are published under the {@value #CACHE_NAME} cache metrics.
+ */
+@Component
+public class PrincipalCache implements UserCache {
+    public static final String CACHE_NAME = "principals";
+    private final JpaUserDetailsService userDetailsService;
+    private final Cache<String, UserDetails> cache;
+    private final CacheInvalidationBus invalidationBus;
+
+    public PrincipalCache(
+            JpaUserDetailsService userDetailsService,
+            CacheInvalidationBus invalidationBus,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.principal-cache.max-size:10000}") long maxSize,
+            @Value("${application.security.principal-cache.ttl:5m}") Duration ttl
+    ) {
+        this.userDetailsService = userDetailsService;
+        this.invalidationBus = invalidationBus;
+        this.cache = CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maxSize)
+                        .expireAfterWrite(ttl)
+                        .recordStats()
+                        .build(),
+                CACHE_NAME
+        );
+        // Other nodes send the user id, as they can't know which username this node has cached the user under
+        invalidationBus.subscribe(CACHE_NAME, userId -> {
+            if (userId == null) {
+                cache.invalidateAll();
+            } else {
+                removeUserById(userId);
+            }
+        });
+    }
+
+    /**
+     * Returns the cached principal for the given username, loading it through {@link JpaUserDetailsService} on a miss.
+     */
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return cache.get(username, userDetailsService::loadUserByUsername);
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        return cache.getIfPresent(username);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        cache.put(user.getUsername(), user);
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        cache.invalidate(username);
+    }
+
+    @EventListener
+    public void onPasswordChangedEvent(UserEvents.PasswordChangedEvent event) {
+        removeUserFromCache(event.user().getUsername());
+    }
+
+    @EventListener
+    public void onUpdatedEvent(UserEvents.UpdatedEvent event) {
+        removeUserFromCache(event.user().getUsername());
+    }
+
+    @EventListener
+    public void onUsernameUpdatedEvent(UserEvents.UsernameUpdatedEvent event) {
+        // The event carries the new username, so the entry cached under the old one has to be found by id
+        removeUser(event.user());
+    }
+
+    @TransactionalEventListener(
+            classes = {
+                    UserEvents.PasswordChangedEvent.class,
+                    UserEvents.UpdatedEvent.class,
+                    UserEvents.UsernameUpdatedEvent.class
+            },
+            fallbackExecution = true
+    )
+    public void onCommittedUserEvent(UserEvents.UserEvent event) {
+        invalidationBus.publish(CACHE_NAME, event.user().getId());
+    }
+
+    private void removeUser(User user) {
+        removeUserFromCache(user.getUsername());
+        removeUserById(user.getId());
+    }
+
+    private void removeUserById(String userId) {
+        cache.asMap().values().removeIf(details ->
+                details instanceof SecurityUser securityUser
+                        && securityUser.getUser().getId().equals(userId)
+        );
+    }
+}
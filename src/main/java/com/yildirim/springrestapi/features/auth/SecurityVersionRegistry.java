@@ -0,0 +1,91 @@
+package com.yildirim.springrestapi.features.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yildirim.springrestapi.common.cache.CacheInvalidationBus;
+import com.yildirim.springrestapi.features.user.User;
+import com.yildirim.springrestapi.features.user.UserEvents;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Remembers the latest security version of users whose account changed recently, so that access tokens issued
+ * before the change can be told apart without a database lookup.
+ * <p>
+ * Entries have to outlive the tokens issued before the change, so the configured TTL is kept at least as long as
+ * the refresh token lifetime. Refreshing also checks the user's stored security version, which covers a restart.
+ * Committed changes are sent to the other nodes through the {@link CacheInvalidationBus} as {@code userId:version}, so
+ * a token is rejected by every node, not only the one that handled the change.
+ */
+@Component
+public class SecurityVersionRegistry {
+    public static final String REGION = "security-versions";
+    private final Cache<String, Integer> versions;
+    private final CacheInvalidationBus invalidationBus;
+
+    public SecurityVersionRegistry(
+            CacheInvalidationBus invalidationBus,
+            @Value("${application.security.security-versions.max-size:100000}") long maxSize,
+            @Value("${application.security.security-versions.ttl:3h}") Duration ttl
+    ) {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(REGION, key -> {
+            final int separator = key == null ? -1 : key.lastIndexOf(':');
+            if (separator > 0) {
+                record(key.substring(0, separator), Integer.parseInt(key.substring(separator + 1)));
+            }
+        });
+    }
+
+    /**
+     * @return true if the user's security version has changed since the token carrying the given version was issued
+     */
+    public boolean isStale(String userId, int securityVersion) {
+        final Integer latest = versions.getIfPresent(userId);
+        return latest != null && latest > securityVersion;
+    }
+
+    public void record(User user) {
+        record(user.getId(), user.getSecurityVersion());
+    }
+
+    private void record(String userId, int securityVersion) {
+        versions.asMap().merge(userId, securityVersion, Math::max);
+    }
+
+    @EventListener
+    public void onPasswordChangedEvent(UserEvents.PasswordChangedEvent event) {
+        record(event.user());
+    }
+
+    @EventListener
+    public void onUsernameUpdatedEvent(UserEvents.UsernameUpdatedEvent event) {
+        record(event.user());
+    }
+
+    @EventListener
+    public void onUpdatedEvent(UserEvents.UpdatedEvent event) {
+        record(event.user());
+    }
+
+    @TransactionalEventListener(
+            classes = {
+                    UserEvents.PasswordChangedEvent.class,
+                    UserEvents.UpdatedEvent.class,
+                    UserEvents.UsernameUpdatedEvent.class
+            },
+            fallbackExecution = true
+    )
+    public void onCommittedUserEvent(UserEvents.UserEvent event) {
+        final User user = event.user();
+        invalidationBus.publish(REGION, user.getId() + ":" + user.getSecurityVersion());
+    }
+}
@@ -0,0 +1,110 @@
+package com.yildirim.springrestapi.features.auth;
+
+import com.yildirim.springrestapi.features.auth.token.ParsedToken;
+import com.yildirim.springrestapi.features.user.Flags;
+import com.yildirim.springrestapi.features.user.User;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A principal built entirely from the claims of a verified access token, so that {@link JwtAuthenticationFilter}
+ * doesn't need to load the {@link User}.
+ * <p>
+ * The token carries the user id, role, the flag bits that decide whether the account is usable, and the user's
+ * security version at the time the token was issued.
+ */
+@Getter
+public class TokenPrincipal implements UserDetails {
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String FLAGS_CLAIM = "flg";
+    public static final String SECURITY_VERSION_CLAIM = "sv";
+    private static final int FLAGS_MASK = Flags.setFlag(
+            Flags.setFlag(Flags.setFlag(0, Flags.UserFlag.DISABLED), Flags.UserFlag.DELETED),
+            Flags.UserFlag.EMAIL_VERIFIED
+    );
+    private final String id;
+    private final String username;
+    private final Role role;
+    private final int flags;
+    private final int securityVersion;
+
+    public TokenPrincipal(String id, String username, Role role, int flags, int securityVersion) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+        this.flags = flags;
+        this.securityVersion = securityVersion;
+    }
+
+    /**
+     * @return the principal, or null if the token was issued without the principal claims
+     */
+    public static TokenPrincipal from(ParsedToken token) {
+        final String id = token.claim(USER_ID_CLAIM, String.class);
+        final String role = token.claim(ROLE_CLAIM, String.class);
+        final Number flags = token.claim(FLAGS_CLAIM, Number.class);
+        final Number securityVersion = token.claim(SECURITY_VERSION_CLAIM, Number.class);
+        if (id == null || role == null || flags == null || securityVersion == null) {
+            return null;
+        }
+
+        try {
+            return new TokenPrincipal(id, token.subject(), Role.valueOf(role), flags.intValue(), securityVersion.intValue());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the user id of an authenticated principal, whether it was built from the token or loaded from the database
+     */
+    public static String idOf(UserDetails principal) {
+        if (principal instanceof TokenPrincipal tokenPrincipal) {
+            return tokenPrincipal.getId();
+        }
+        if (principal instanceof SecurityUser securityUser) {
+            return securityUser.getUser().getId();
+        }
+        throw new IllegalArgumentException("Unsupported principal " + principal);
+    }
+
+    public static Map<String, Object> claimsOf(User user) {
+        final Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(ROLE_CLAIM, user.getRole().name());
+        claims.put(FLAGS_CLAIM, user.getFlags() & FLAGS_MASK);
+        claims.put(SECURITY_VERSION_CLAIM, user.getSecurityVersion());
+        return claims;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role.name()));
+    }
+
+    /**
+     * Tokens never carry the password hash
+     */
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return isEnabled();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return !Flags.isFlagSet(flags, Flags.UserFlag.DISABLED) && !Flags.isFlagSet(flags, Flags.UserFlag.DELETED);
+    }
+}
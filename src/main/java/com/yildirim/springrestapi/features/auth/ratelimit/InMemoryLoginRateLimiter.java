@@ -0,0 +1,78 @@
+package com.yildirim.springrestapi.features.auth.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the login buckets of this node in a size bounded cache. A bucket is dropped once it has been idle long enough
+ * to be full again, so forgetting it doesn't change any outcome.
+ * <p>
+ * Every bucket is a single {@link AtomicLong} holding its theoretical arrival time (GCRA): the instant at which the
+ * bucket will be full again. Taking an attempt is one compare-and-set, so concurrent logins never block each other.
+ */
+@Component
+@ConditionalOnProperty(name = "application.security.login-rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryLoginRateLimiter implements LoginRateLimiter {
+    public static final String CACHE_NAME = "login-rate-limit";
+    private final Cache<String, Bucket> buckets;
+
+    public InMemoryLoginRateLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${application.security.login-rate-limit.max-keys:100000}") long maxKeys
+    ) {
+        this.buckets = CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maxKeys)
+                        .expireAfter(Expiry.accessing((String key, Bucket bucket) -> bucket.idleTimeout))
+                        .recordStats()
+                        .<String, Bucket>build(),
+                CACHE_NAME
+        );
+    }
+
+    @Override
+    public boolean tryAcquire(String key, Limit limit) {
+        return buckets.get(key, k -> new Bucket(limit)).tryAcquire(limit, System.nanoTime());
+    }
+
+    @Override
+    public void reset(String key) {
+        buckets.invalidate(key);
+    }
+
+    static final class Bucket {
+        private final AtomicLong fullAt;
+        private final Duration idleTimeout;
+
+        Bucket(Limit limit) {
+            this.fullAt = new AtomicLong(System.nanoTime());
+            this.idleTimeout = limit.idleTimeout();
+        }
+
+        boolean tryAcquire(Limit limit, long now) {
+            final long interval = limit.refillInterval().toNanos();
+            final long burst = interval * (limit.capacity() - 1);
+            while (true) {
+                final long current = fullAt.get();
+                // A bucket that has been full for a while doesn't bank extra attempts
+                final long start = current - now < 0 ? now : current;
+                if (start - now > burst) {
+                    return false;
+                }
+                if (fullAt.compareAndSet(current, start + interval)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
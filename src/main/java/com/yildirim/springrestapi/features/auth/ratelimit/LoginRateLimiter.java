@@ -0,0 +1,43 @@
+package com.yildirim.springrestapi.features.auth.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Throttles login attempts per key, such as a username or a client IP.
+ * <p>
+ * Each key has a token bucket that holds up to {@link Limit#capacity()} attempts and refills one every
+ * {@link Limit#refillInterval()}. The implementation is selected with
+ * {@code application.security.login-rate-limit.store}: {@code memory} (default) keeps the buckets on this node,
+ * {@code redis} shares them across nodes.
+ */
+public interface LoginRateLimiter {
+    /**
+     * Takes one attempt from the key's bucket.
+     *
+     * @return false if the bucket is empty and the attempt should be rejected
+     */
+    boolean tryAcquire(String key, Limit limit);
+
+    /**
+     * Refills the key's bucket, e.g. after a successful login.
+     */
+    void reset(String key);
+
+    record Limit(int capacity, Duration refillInterval) {
+        public Limit {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("Capacity must be at least 1");
+            }
+            if (refillInterval.isNegative() || refillInterval.isZero()) {
+                throw new IllegalArgumentException("Refill interval must be positive");
+            }
+        }
+
+        /**
+         * How long an untouched bucket takes to become full again, after which it can be forgotten
+         */
+        public Duration idleTimeout() {
+            return refillInterval.multipliedBy(capacity);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.yildirim.springrestapi.features.auth.ratelimit;
+
+import com.yildirim.springrestapi.features.auth.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Guards the login endpoint against brute-force and credential-stuffing attempts, before any password is hashed or
+ * user is loaded.
+ * <p>
+ * Every attempt takes from two buckets: one for the username, which locks an account out after repeated attempts,
+ * and one for the client IP, which slows down a single client spraying many usernames. A successful login refills
+ * the username's bucket.
+ */
+@Component
+public class LoginThrottle {
+    private static final String USERNAME_PREFIX = "user:";
+    private static final String IP_PREFIX = "ip:";
+    private final LoginRateLimiter rateLimiter;
+    private final LoginRateLimiter.Limit usernameLimit;
+    private final LoginRateLimiter.Limit ipLimit;
+    private final Counter usernameRejections;
+    private final Counter ipRejections;
+
+    public LoginThrottle(
+            LoginRateLimiter rateLimiter,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.login-rate-limit.username.capacity:5}") int usernameCapacity,
+            @Value("${application.security.login-rate-limit.username.refill-interval:1m}") Duration usernameRefillInterval,
+            @Value("${application.security.login-rate-limit.ip.capacity:20}") int ipCapacity,
+            @Value("${application.security.login-rate-limit.ip.refill-interval:5s}") Duration ipRefillInterval
+    ) {
+        this.rateLimiter = rateLimiter;
+        this.usernameLimit = new LoginRateLimiter.Limit(usernameCapacity, usernameRefillInterval);
+        this.ipLimit = new LoginRateLimiter.Limit(ipCapacity, ipRefillInterval);
+        this.usernameRejections = Counter.builder("auth.login.throttled")
+                .tag("key", "username")
+                .register(meterRegistry);
+        this.ipRejections = Counter.builder("auth.login.throttled")
+                .tag("key", "ip")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @throws TooManyRequestsException if either the client IP or the username has no attempts left
+     */
+    public void acquire(String username, HttpServletRequest request) {
+        if (!rateLimiter.tryAcquire(IP_PREFIX + request.getRemoteAddr(), ipLimit)) {
+            ipRejections.increment();
+            throw new TooManyRequestsException("Too many login attempts, try again later");
+        }
+        if (username != null && !rateLimiter.tryAcquire(usernameKey(username), usernameLimit)) {
+            usernameRejections.increment();
+            throw new TooManyRequestsException("Too many login attempts, try again later");
+        }
+    }
+
+    public void onSuccess(String username) {
+        rateLimiter.reset(usernameKey(username));
+    }
+
+    private static String usernameKey(String username) {
+        return USERNAME_PREFIX + username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,54 @@
+package com.yildirim.springrestapi.features.auth.ratelimit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Shares the login buckets across nodes in Redis. Each bucket is one key holding its theoretical arrival time, updated
+ * by a single script that uses the Redis clock, so nodes with skewed clocks still agree. Keys expire once the bucket
+ * would be full again.
+ */
+@Component
+@ConditionalOnProperty(name = "application.security.login-rate-limit.store", havingValue = "redis")
+@RequiredArgsConstructor
+public class RedisLoginRateLimiter implements LoginRateLimiter {
+    static final String KEY_PREFIX = "login-rate-limit:";
+    static final RedisScript<Long> ACQUIRE_SCRIPT = RedisScript.of("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+            local interval = tonumber(ARGV[1])
+            local burst = interval * (tonumber(ARGV[2]) - 1)
+            local fullAt = tonumber(redis.call('GET', KEYS[1]) or now)
+            if fullAt < now then
+                fullAt = now
+            end
+            if fullAt - now > burst then
+                return 0
+            end
+            fullAt = fullAt + interval
+            redis.call('SET', KEYS[1], fullAt, 'PX', math.ceil((fullAt - now) / 1000))
+            return 1
+            """, Long.class);
+    private final StringRedisTemplate redisTemplate;
+
+    @Override
+    public boolean tryAcquire(String key, Limit limit) {
+        final Long acquired = redisTemplate.execute(
+                ACQUIRE_SCRIPT,
+                List.of(KEY_PREFIX + key),
+                String.valueOf(limit.refillInterval().toNanos() / 1000),
+                String.valueOf(limit.capacity())
+        );
+        return acquired != null && acquired == 1;
+    }
+
+    @Override
+    public void reset(String key) {
+        redisTemplate.delete(KEY_PREFIX + key);
+    }
+}
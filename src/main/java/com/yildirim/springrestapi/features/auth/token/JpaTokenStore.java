@@ -0,0 +1,58 @@
+package com.yildirim.springrestapi.features.auth.token;
+
+import com.yildirim.springrestapi.features.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Component
+@ConditionalOnProperty(name = "application.security.token-store", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+@Transactional
+public class JpaTokenStore implements TokenStore {
+    private final TokenRepository tokenRepository;
+
+    @Override
+    public void save(User user, String tokenId, String familyId, TokenType tokenType, Instant expiresAt) {
+        tokenRepository.save(Token.builder()
+                .user(user)
+                .tokenId(tokenId)
+                .familyId(familyId)
+                .generation(0)
+                .expiresAt(expiresAt)
+                .tokenType(tokenType)
+                .expired(false)
+                .revoked(false)
+                .build()
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isActive(String familyId, int generation) {
+        return tokenRepository.findByFamilyId(familyId)
+                .map(storedToken -> storedToken.getGeneration() == generation
+                        && !storedToken.isRevoked()
+                        && !storedToken.isExpired()
+                        && (storedToken.getExpiresAt() == null || storedToken.getExpiresAt().isAfter(Instant.now())))
+                .orElse(false);
+    }
+
+    @Override
+    public boolean rotate(String familyId, int generation, String nextTokenId, Instant expiresAt) {
+        return tokenRepository.rotate(familyId, generation, nextTokenId, expiresAt, Instant.now()) == 1;
+    }
+
+    @Override
+    public void revoke(String familyId) {
+        tokenRepository.revokeByFamilyId(familyId);
+    }
+
+    @Override
+    public int revokeAllForUser(User user) {
+        return tokenRepository.revokeAllByUserId(user.getId());
+    }
+}
@@ -0,0 +1,43 @@
+package com.yildirim.springrestapi.features.auth.token;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable view of a JWT whose signature has already been verified by {@link TokenService#validateToken(String)}.
+ * Holds everything the callers need, so the token never has to be parsed a second time in the same request.
+ */
+public record ParsedToken(
+        String id,
+        String subject,
+        Instant issuedAt,
+        Instant expiresAt,
+        Map<String, Object> claims
+) {
+    public ParsedToken {
+        claims = Collections.unmodifiableMap(new LinkedHashMap<>(claims));
+    }
+
+    public static ParsedToken of(Claims claims) {
+        return new ParsedToken(
+                claims.getId(),
+                claims.getSubject(),
+                claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(),
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant(),
+                claims
+        );
+    }
+
+    public boolean isExpired() {
+        return expiresAt != null && expiresAt.isBefore(Instant.now());
+    }
+
+    public <T> T claim(String name, Class<T> type) {
+        final Object value = claims.get(name);
+        return type.isInstance(value) ? type.cast(value) : null;
+    }
+}
@@ -0,0 +1,92 @@
+package com.yildirim.springrestapi.features.auth.token;
+
+import com.yildirim.springrestapi.features.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stores the latest generation of each refresh token family in Redis, with a TTL equal to the token's remaining
+ * lifetime. Revocation checks are a single key lookup, rotation is a single compare-and-set script, and expired
+ * families are cleaned up by Redis itself.
+ * <p>
+ * Each user also has a set of their family ids, which is used to revoke all of them at once.
+ */
+@Component
+@ConditionalOnProperty(name = "application.security.token-store", havingValue = "redis")
+@RequiredArgsConstructor
+public class RedisTokenStore implements TokenStore {
+    static final String FAMILY_PREFIX = "tokens:family:";
+    static final String USER_FAMILIES_PREFIX = "tokens:user:";
+    static final RedisScript<Long> ROTATE_SCRIPT = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+                return 1
+            end
+            return 0
+            """, Long.class);
+    private final StringRedisTemplate redisTemplate;
+
+    @Override
+    public void save(User user, String tokenId, String familyId, TokenType tokenType, Instant expiresAt) {
+        final Duration ttl = Duration.between(Instant.now(), expiresAt);
+        if (ttl.isNegative() || ttl.isZero()) {
+            return;
+        }
+
+        final String userFamiliesKey = USER_FAMILIES_PREFIX + user.getId();
+        redisTemplate.opsForValue().set(FAMILY_PREFIX + familyId, "0", ttl);
+        redisTemplate.opsForSet().add(userFamiliesKey, familyId);
+        // Every family has the same lifetime, so the newest one always outlives the ones before it
+        redisTemplate.expire(userFamiliesKey, ttl);
+    }
+
+    @Override
+    public boolean isActive(String familyId, int generation) {
+        return String.valueOf(generation).equals(redisTemplate.opsForValue().get(FAMILY_PREFIX + familyId));
+    }
+
+    @Override
+    public boolean rotate(String familyId, int generation, String nextTokenId, Instant expiresAt) {
+        final Duration ttl = Duration.between(Instant.now(), expiresAt);
+        if (ttl.isNegative() || ttl.isZero()) {
+            return false;
+        }
+
+        final Long rotated = redisTemplate.execute(
+                ROTATE_SCRIPT,
+                List.of(FAMILY_PREFIX + familyId),
+                String.valueOf(generation),
+                String.valueOf(generation + 1),
+                String.valueOf(ttl.toMillis())
+        );
+        return rotated != null && rotated == 1;
+    }
+
+    @Override
+    public void revoke(String familyId) {
+        redisTemplate.delete(FAMILY_PREFIX + familyId);
+    }
+
+    @Override
+    public int revokeAllForUser(User user) {
+        final String userFamiliesKey = USER_FAMILIES_PREFIX + user.getId();
+        final Set<String> familyIds = redisTemplate.opsForSet().members(userFamiliesKey);
+        redisTemplate.delete(userFamiliesKey);
+        if (familyIds == null || familyIds.isEmpty()) {
+            return 0;
+        }
+
+        final Long revoked = redisTemplate.delete(
+                familyIds.stream().map(familyId -> FAMILY_PREFIX + familyId).toList()
+        );
+        return revoked == null ? 0 : revoked.intValue();
+    }
+}
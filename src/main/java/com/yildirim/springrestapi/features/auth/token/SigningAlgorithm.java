@@ -0,0 +1,37 @@
+package com.yildirim.springrestapi.features.auth.token;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+
+import java.security.KeyPair;
+
+/**
+ * Asymmetric algorithms that tokens can be signed with, selected with {@code application.security.jwt.algorithm}.
+ */
+public enum SigningAlgorithm {
+    EdDSA(Jwts.SIG.EdDSA) {
+        @Override
+        public KeyPair generateKeyPair() {
+            return Jwks.CRV.Ed25519.keyPair().build();
+        }
+    },
+    ES256(Jwts.SIG.ES256) {
+        @Override
+        public KeyPair generateKeyPair() {
+            return Jwts.SIG.ES256.keyPair().build();
+        }
+    };
+
+    private final SignatureAlgorithm algorithm;
+
+    SigningAlgorithm(SignatureAlgorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public SignatureAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public abstract KeyPair generateKeyPair();
+}
@@ -0,0 +1,16 @@
+package com.yildirim.springrestapi.features.auth.token;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.time.Instant;
+
+/**
+ * A signing key pair, identified by the {@code kid} header of the tokens it signs.
+ */
+public record SigningKey(
+        String id,
+        PrivateKey privateKey,
+        PublicKey publicKey,
+        Instant createdAt
+) {
+}
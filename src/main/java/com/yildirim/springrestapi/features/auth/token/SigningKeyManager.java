@@ -0,0 +1,194 @@
+package com.yildirim.springrestapi.features.auth.token;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the asymmetric keys tokens are signed with. New tokens are signed with the current key and carry its id in
+ * the {@code kid} header, older keys are kept around to verify the tokens they signed until they are rotated out.
+ * <p>
+ * Keys are loaded from a PKCS#12 key store when {@code application.security.jwt.key-store.location} is set, so that
+ * every node signs and verifies with the same keys across restarts. Otherwise key pairs are generated in memory and
+ * rotated every {@code application.security.jwt.key-rotation-interval}. Generated keys only exist on the node that
+ * generated them and are lost on restart, so they are only fit for a single node: tokens it issued can't be verified
+ * anywhere else, and no longer verify once it restarts. Startup logs a warning when keys are generated, and fails
+ * instead when {@code application.security.jwt.key-store.required} is set.
+ * <p>
+ * The public keys are published as a JWK set, so gateways can verify tokens without sharing any secret.
+ */
+@Component
+public class SigningKeyManager {
+    private static final Logger log = LoggerFactory.getLogger(SigningKeyManager.class);
+    private final SigningAlgorithm algorithm;
+    private final int maxKeys;
+    private final boolean generated;
+    private final Map<String, Key> verificationKeys = new ConcurrentHashMap<>();
+    private final JwtParser parser;
+    private volatile List<SigningKey> keys;
+
+    public SigningKeyManager(
+            @Value("${application.security.jwt.algorithm:EdDSA}") SigningAlgorithm algorithm,
+            @Value("${application.security.jwt.max-keys:3}") int maxKeys,
+            @Value("${application.security.jwt.key-store.location:#{null}}") Resource keyStoreLocation,
+            @Value("${application.security.jwt.key-store.password:}") String keyStorePassword,
+            @Value("${application.security.jwt.key-store.active-key:}") String activeKey,
+            @Value("${application.security.jwt.key-store.required:false}") boolean keyStoreRequired
+    ) throws GeneralSecurityException, IOException {
+        this.algorithm = algorithm;
+        this.maxKeys = maxKeys;
+        this.generated = keyStoreLocation == null;
+        if (generated && keyStoreRequired) {
+            throw new IllegalStateException(
+                    "application.security.jwt.key-store.required is set, but application.security.jwt.key-store.location isn't"
+            );
+        }
+        if (generated) {
+            log.warn("No application.security.jwt.key-store.location is set, generating token signing keys on this node. "
+                    + "Tokens it issues can't be verified by other nodes, nor by this one after a restart");
+        }
+        this.keys = generated
+                ? List.of(generateKey())
+                : loadKeyStore(keyStoreLocation, keyStorePassword.toCharArray(), activeKey);
+        this.keys.forEach(key -> verificationKeys.put(key.id(), key.publicKey()));
+        // Parsers are immutable and thread-safe, so a single instance is shared instead of being rebuilt per call
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return header.getKeyId() == null ? null : verificationKeys.get(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Creates a manager with a single generated key, which is never rotated.
+     */
+    public static SigningKeyManager inMemory(SigningAlgorithm algorithm) {
+        try {
+            return new SigningKeyManager(algorithm, 1, null, "", "", false);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private SigningKey generateKey() {
+        final KeyPair keyPair = algorithm.generateKeyPair();
+        return new SigningKey(UUID.randomUUID().toString(), keyPair.getPrivate(), keyPair.getPublic(), Instant.now());
+    }
+
+    /**
+     * Loads every private key entry of the key store, the active key (or the first alias) becomes the signing key.
+     */
+    private static List<SigningKey> loadKeyStore(Resource location, char[] password, String activeKey)
+            throws GeneralSecurityException, IOException {
+        final KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = location.getInputStream()) {
+            keyStore.load(in, password);
+        }
+
+        final List<SigningKey> keys = new ArrayList<>();
+        for (String alias : Collections.list(keyStore.aliases())) {
+            if (keyStore.getKey(alias, password) instanceof PrivateKey privateKey) {
+                final var key = new SigningKey(alias, privateKey, keyStore.getCertificate(alias).getPublicKey(), Instant.now());
+                if (alias.equals(activeKey)) {
+                    keys.addFirst(key);
+                } else {
+                    keys.add(key);
+                }
+            }
+        }
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("No signing keys found in " + location);
+        }
+
+        return List.copyOf(keys);
+    }
+
+    public SigningAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public SigningKey getCurrentKey() {
+        return keys.getFirst();
+    }
+
+    public JwtParser getParser() {
+        return parser;
+    }
+
+    /**
+     * Signs the token with the current key and sets its {@code kid} header.
+     */
+    public String sign(JwtBuilder builder) {
+        final SigningKey key = getCurrentKey();
+        return builder
+                .header().keyId(key.id()).and()
+                .signWith(key.privateKey(), algorithm.getAlgorithm())
+                .compact();
+    }
+
+    /**
+     * Generates a new current key. The oldest key is dropped once there are more than
+     * {@code application.security.jwt.max-keys}, so {@code max-keys * key-rotation-interval} has to be longer than the
+     * lifetime of the tokens.
+     */
+    @Scheduled(
+            initialDelayString = "${application.security.jwt.key-rotation-interval:PT24H}",
+            fixedRateString = "${application.security.jwt.key-rotation-interval:PT24H}"
+    )
+    public synchronized void rotate() {
+        if (!generated) {
+            return;
+        }
+
+        final SigningKey key = generateKey();
+        final List<SigningKey> rotated = new ArrayList<>(keys);
+        rotated.addFirst(key);
+        // Verification keys are added before the key is used for signing, and removed after it no longer is
+        verificationKeys.put(key.id(), key.publicKey());
+        while (rotated.size() > maxKeys) {
+            verificationKeys.remove(rotated.removeLast().id());
+        }
+        keys = List.copyOf(rotated);
+        log.info("Rotated token signing key, current key is {}", key.id());
+    }
+
+    /**
+     * @return the public keys as a JWK set, see RFC 7517
+     */
+    public Map<String, Object> getJwks() {
+        final List<Map<String, Object>> jwks = keys.stream()
+                .map(key -> {
+                    PublicJwk<?> jwk = Jwks.builder()
+                            .key(key.publicKey())
+                            .id(key.id())
+                            .build();
+                    return Map.<String, Object>copyOf(jwk);
+                })
+                .toList();
+        return Map.of("keys", jwks);
+    }
+}
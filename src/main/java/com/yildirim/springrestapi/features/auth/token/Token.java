@@ -7,18 +7,35 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = @Index(name = "idx_token_user_state", columnList = "user_id, revoked, expired"))
 public class Token {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(unique = true)
-    private String tokenStr;
+    /**
+     * The {@code jti} claim of the latest token in the family, the token itself is never stored
+     */
+    @Column(name = "token_id", unique = true, nullable = false, length = TokenService.TOKEN_ID_LENGTH)
+    private String tokenId;
+
+    @Column(name = "family_id", unique = true, nullable = false, length = TokenService.TOKEN_ID_LENGTH)
+    private String familyId;
+
+    /**
+     * Generation of the latest refresh token issued in the family, older generations are no longer valid
+     */
+    private int generation;
+
+    @Column(name = "expires_at")
+    private Instant expiresAt;
 
     @Enumerated(EnumType.STRING)
     @Builder.Default
@@ -0,0 +1,82 @@
+package com.yildirim.springrestapi.features.auth.token;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Periodically deletes revoked and expired rows from the {@link Token} table.
+ * <p>
+ * Rows are deleted in chunks of {@code application.security.token-purge.batch-size}, each in its own transaction,
+ * so a large backlog never holds locks on the table for long. Only needed by {@link JpaTokenStore}, the Redis store
+ * expires its entries by itself.
+ */
+@Component
+@ConditionalOnProperty(name = "application.security.token-store", havingValue = "jpa", matchIfMissing = true)
+public class TokenPurgeJob {
+    private static final Logger log = LoggerFactory.getLogger(TokenPurgeJob.class);
+    private final TokenRepository tokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final DistributionSummary purgedRows;
+    private final Timer purgeTimer;
+
+    public TokenPurgeJob(
+            TokenRepository tokenRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.token-purge.batch-size:1000}") int batchSize
+    ) {
+        this.tokenRepository = tokenRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.purgedRows = DistributionSummary.builder("tokens.purge.rows")
+                .description("Token rows deleted per purge run")
+                .register(meterRegistry);
+        this.purgeTimer = Timer.builder("tokens.purge")
+                .description("Time taken by a token purge run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${application.security.token-purge.cron:0 */15 * * * *}")
+    public void purge() {
+        final int purged = purgeTimer.record(this::purgeAll);
+        purgedRows.record(purged);
+        if (purged > 0) {
+            log.info("Purged {} revoked or expired tokens", purged);
+        }
+    }
+
+    private int purgeAll() {
+        final Instant now = Instant.now();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = Objects.requireNonNullElse(transactionTemplate.execute(status -> purgeBatch(now)), 0);
+            total += deleted;
+        } while (deleted == batchSize);
+
+        return total;
+    }
+
+    private int purgeBatch(Instant now) {
+        final List<Long> ids = tokenRepository.findPurgeableIds(now, Limit.of(batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        return tokenRepository.deleteAllByIdIn(ids);
+    }
+}
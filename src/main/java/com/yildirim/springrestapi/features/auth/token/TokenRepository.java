@@ -1,20 +1,58 @@
 package com.yildirim.springrestapi.features.auth.token;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 @Repository
-public interface TokenRepository extends JpaRepository<Token, Integer> {
-    @Query(value = """
-            select t from Token t inner join User u\s
-            on t.user.id = u.id\s
-            where u.id = :id and (t.expired = false or t.revoked = false)\s
-            """)
+public interface TokenRepository extends JpaRepository<Token, Long> {
+    @Query("select t from Token t where t.user.id = :id and t.revoked = false and t.expired = false")
     Set<Token> findAllValidTokensByUser(String id);
 
-    Optional<Token> findByTokenStr(String tokenStr);
-}
\ No newline at end of file
+    Optional<Token> findByFamilyId(String familyId);
+
+    /**
+     * Compare-and-set on the generation of the family.
+     *
+     * @return 1 if the family was at the expected generation and has been advanced, 0 otherwise
+     */
+    @Modifying
+    @Query("""
+            update Token t set t.generation = t.generation + 1, t.tokenId = :nextTokenId, t.expiresAt = :expiresAt\s
+            where t.familyId = :familyId and t.generation = :generation\s
+            and t.revoked = false and t.expired = false and t.expiresAt > :now\s
+            """)
+    int rotate(String familyId, int generation, String nextTokenId, Instant expiresAt, Instant now);
+
+    @Modifying
+    @Query("update Token t set t.expired = true, t.revoked = true where t.familyId = :familyId")
+    int revokeByFamilyId(String familyId);
+
+    /**
+     * Revokes every valid token of the user in a single statement, matching the {@code (user_id, revoked, expired)}
+     * index on the token table.
+     *
+     * @return the number of revoked tokens
+     */
+    @Modifying
+    @Query("""
+            update Token t set t.expired = true, t.revoked = true\s
+            where t.user.id = :userId and t.revoked = false and t.expired = false\s
+            """)
+    int revokeAllByUserId(String userId);
+
+    @Query("select t.id from Token t where t.revoked = true or t.expired = true or t.expiresAt < :now")
+    List<Long> findPurgeableIds(Instant now, Limit limit);
+
+    @Modifying
+    @Query("delete from Token t where t.id in :ids")
+    int deleteAllByIdIn(Collection<Long> ids);
+}
@@ -1,7 +1,10 @@
 package com.yildirim.springrestapi.features.auth.token;
 
+import com.yildirim.springrestapi.features.auth.SecurityUser;
+import com.yildirim.springrestapi.features.auth.TokenPrincipal;
 import com.yildirim.springrestapi.features.user.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,13 +13,19 @@ import org.springframework.boot.autoconfigure.web.ServerProperties;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 @RequiredArgsConstructor
 @Service
@@ -24,15 +33,17 @@ public class TokenService {
     public static final String AUTHORIZATION_HEADER = "Authorization";
     public static final String BEARER = "Bearer ";
     public static final String REFRESH_TOKEN_COOKIE = "refresh_token";
-    //    @Value("${application.security.jwt.secret-key}")
-    private static final SecretKey secretKey = Jwts.SIG.HS256.key()
-            .build();
+    public static final int TOKEN_ID_LENGTH = 36;
+    public static final String FAMILY_CLAIM = "fam";
+    public static final String GENERATION_CLAIM = "gen";
     //    @Value("${application.security.jwt.expiration}")
     private static final long jwtExpiration = 1000000;
     //    @Value("${application.security.jwt.refresh-token.expiration}")
     private static final long refreshExpiration = 10000000;
     private final ServerProperties serverProperties;
-    private final TokenRepository tokenRepository;
+    private final TokenStore tokenStore;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final SigningKeyManager signingKeyManager;
 
     public static String extractAuthTokenFromHeader(HttpServletRequest request) {
         final String header = request.getHeader(AUTHORIZATION_HEADER);
@@ -43,6 +54,19 @@ public class TokenService {
         return header.substring(BEARER.length());
     }
 
+    /**
+     * @return the Base64 encoded SHA-256 digest of the token, which is a fixed width key for the full compact JWT
+     */
+    public static String digest(String token) {
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
     public static String extractRefreshTokenFromCookies(HttpServletRequest request) {
         final var cookies = request.getCookies();
         if (cookies == null) {
@@ -64,18 +88,37 @@ public class TokenService {
             UserDetails userDetails,
             long expiration
     ) {
-        return Jwts
+        return buildToken(UUID.randomUUID().toString(), extraClaims, userDetails.getUsername(), expiration);
+    }
+
+    private String buildToken(
+            String tokenId,
+            Map<String, Object> extraClaims,
+            String subject,
+            long expiration
+    ) {
+        return signingKeyManager.sign(Jwts
                 .builder()
                 .claims(extraClaims)
-                .subject(userDetails.getUsername())
+                .id(tokenId)
+                .subject(subject)
                 .issuedAt(Date.from(Instant.now()))
                 .expiration(Date.from(Instant.now().plus(expiration, ChronoUnit.MILLIS)))
-                .signWith(getSecretKey(), Jwts.SIG.HS256)
-                .compact();
+        );
     }
 
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        return generateToken(principalClaims(userDetails), userDetails);
+    }
+
+    /**
+     * Claims that let {@link TokenPrincipal} be built from the token alone, empty if the user isn't known
+     */
+    private static Map<String, Object> principalClaims(UserDetails userDetails) {
+        if (userDetails instanceof SecurityUser securityUser) {
+            return TokenPrincipal.claimsOf(securityUser.getUser());
+        }
+        return new HashMap<>();
     }
 
     public String generateToken(
@@ -85,10 +128,41 @@ public class TokenService {
         return buildToken(extraClaims, userDetails, jwtExpiration);
     }
 
+    /**
+     * Issues an access token for the user of an already verified refresh token, with the user's current claims.
+     */
+    public String generateToken(User user) {
+        return buildToken(UUID.randomUUID().toString(), TokenPrincipal.claimsOf(user), user.getUsername(), jwtExpiration);
+    }
+
+    /**
+     * @return true if the refresh token was issued to the user as they are now: the account is neither disabled nor
+     * deleted, and nothing that bumps the security version, such as a password change, happened since
+     */
+    public static boolean isIssuedToCurrent(ParsedToken refreshToken, User user) {
+        final String userId = refreshToken.claim(TokenPrincipal.USER_ID_CLAIM, String.class);
+        final Number securityVersion = refreshToken.claim(TokenPrincipal.SECURITY_VERSION_CLAIM, Number.class);
+        return user.getId().equals(userId)
+                && securityVersion != null
+                && securityVersion.intValue() == user.getSecurityVersion()
+                && !user.isDisabled()
+                && !user.isDeleted();
+    }
+
+    /**
+     * Starts a new refresh token family, the returned token is its first generation.
+     */
     public Cookie generateRefreshTokenCookie(
             UserDetails userDetails
     ) {
-        String token = buildToken(new HashMap<>(), userDetails, refreshExpiration);
+        final Map<String, Object> claims = principalClaims(userDetails);
+        claims.put(FAMILY_CLAIM, UUID.randomUUID().toString());
+        claims.put(GENERATION_CLAIM, 0);
+
+        return refreshTokenCookie(buildToken(claims, userDetails, refreshExpiration));
+    }
+
+    private Cookie refreshTokenCookie(String token) {
         Cookie refreshCookie = new Cookie(REFRESH_TOKEN_COOKIE, token);
         refreshCookie.setHttpOnly(true);
         refreshCookie.setMaxAge((int) refreshExpiration);
@@ -97,42 +171,126 @@ public class TokenService {
         return refreshCookie;
     }
 
-    private void revokeAllUserTokens(User user) {
-        var validUserTokens = tokenRepository.findAllValidTokensByUser(user.getId());
-        if (validUserTokens.isEmpty())
-            return;
-        validUserTokens.forEach(token -> {
-            token.setExpired(true);
-            token.setRevoked(true);
-        });
-        tokenRepository.saveAll(validUserTokens);
-    }
-
-    public void revokeToken(String token, boolean persist) {
-        var storedToken = tokenRepository.findByTokenStr(token)
-                .orElse(null);
-        if (storedToken != null) {
-            storedToken.setExpired(true);
-            storedToken.setRevoked(true);
-            if (persist) tokenRepository.save(storedToken);
+    public void saveRefreshToken(User user, String token) {
+        validateToken(token).ifPresent(parsedToken -> tokenStore.save(
+                user,
+                parsedToken.id(),
+                parsedToken.claim(FAMILY_CLAIM, String.class),
+                TokenType.COOKIE,
+                parsedToken.expiresAt()
+        ));
+    }
+
+    /**
+     * @return true if the refresh token belongs to a family that hasn't been revoked, and is its latest generation
+     */
+    public boolean isTokenActive(ParsedToken token) {
+        final String familyId = token.claim(FAMILY_CLAIM, String.class);
+        final Number generation = token.claim(GENERATION_CLAIM, Number.class);
+        return familyId != null && generation != null && tokenStore.isActive(familyId, generation.intValue());
+    }
+
+    /**
+     * Replaces the refresh token with the next generation of its family.
+     * <p>
+     * Only the latest generation of a family can be rotated. Presenting an older one means the token has been reused,
+     * possibly by someone who stole it, so the whole family is revoked.
+     *
+     * @return the cookie holding the new refresh token, or an empty optional if the token can't be rotated
+     */
+    public Optional<Cookie> rotateRefreshToken(ParsedToken refreshToken, User user) {
+        final String familyId = refreshToken.claim(FAMILY_CLAIM, String.class);
+        final Number generation = refreshToken.claim(GENERATION_CLAIM, Number.class);
+        if (familyId == null || generation == null) {
+            return Optional.empty();
+        }
+
+        final String nextTokenId = UUID.randomUUID().toString();
+        final Instant expiresAt = Instant.now().plus(refreshExpiration, ChronoUnit.MILLIS);
+        if (!tokenStore.rotate(familyId, generation.intValue(), nextTokenId, expiresAt)) {
+            tokenStore.revoke(familyId);
+            return Optional.empty();
+        }
+
+        final Map<String, Object> claims = TokenPrincipal.claimsOf(user);
+        claims.put(FAMILY_CLAIM, familyId);
+        claims.put(GENERATION_CLAIM, generation.intValue() + 1);
+
+        return Optional.of(refreshTokenCookie(
+                buildToken(nextTokenId, claims, user.getUsername(), refreshExpiration)
+        ));
+    }
+
+    /**
+     * Revokes every stored token of the user and drops their verified tokens from the cache.
+     *
+     * @return the number of revoked tokens
+     */
+    public int revokeAllUserTokens(User user) {
+        evictUserTokens(user.getUsername());
+        return tokenStore.revokeAllForUser(user);
+    }
+
+    /**
+     * Revokes the family of the refresh token, so none of its generations can be used again
+     */
+    public void revokeFamily(ParsedToken refreshToken) {
+        final String familyId = refreshToken.claim(FAMILY_CLAIM, String.class);
+        if (familyId != null) {
+            tokenStore.revoke(familyId);
         }
     }
 
     public void revokeToken(String token) {
-        revokeToken(token, false);
+        if (token == null) {
+            return;
+        }
+        // Parsed around the cache, which would otherwise take the token back in as valid
+        verify(token, () -> ParsedToken.of(extractAllClaims(token)))
+                .map(parsedToken -> parsedToken.claim(FAMILY_CLAIM, String.class))
+                .ifPresent(tokenStore::revoke);
+        verifiedTokenCache.invalidate(token);
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+    /**
+     * Verifies the signature and expiry of the token in a single pass.
+     *
+     * @return the parsed claims, or an empty optional if the token is malformed, tampered with or expired
+     */
+    public Optional<ParsedToken> validateToken(String token) {
+        return verify(token, () -> verifiedTokenCache.get(token, () -> ParsedToken.of(extractAllClaims(token))));
+    }
+
+    private static Optional<ParsedToken> verify(String token, Supplier<ParsedToken> parser) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(parser.get())
+                    .filter(parsedToken -> !parsedToken.isExpired());
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(Date.from(Instant.now()));
+    /**
+     * Drops every cached token of the user, so that they have to be verified again on their next use.
+     */
+    public void evictUserTokens(String username) {
+        verifiedTokenCache.invalidateAllForSubject(username);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public boolean isTokenValid(ParsedToken token, UserDetails userDetails) {
+        return token.subject() != null
+                && token.subject().equals(userDetails.getUsername())
+                && !token.isExpired();
+    }
+
+    public boolean isTokenValid(String token, UserDetails userDetails) {
+        return validateToken(token)
+                .map(parsedToken -> isTokenValid(parsedToken, userDetails))
+                .orElse(false);
     }
 
     public String extractUsername(String token) {
@@ -145,19 +303,11 @@ public class TokenService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith(getSecretKey())
-                .build()
+        return signingKeyManager.getParser()
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
-    public SecretKey getSecretKey() {
-        //return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
-        return secretKey;
-    }
-
     public Cookie generateExpiredRefreshTokenCookie() {
         Cookie cookie = new Cookie(REFRESH_TOKEN_COOKIE, "");
         cookie.setHttpOnly(true);
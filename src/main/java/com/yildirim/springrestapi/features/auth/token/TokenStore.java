@@ -0,0 +1,39 @@
+package com.yildirim.springrestapi.features.auth.token;
+
+import com.yildirim.springrestapi.features.user.User;
+
+import java.time.Instant;
+
+/**
+ * Keeps track of refresh token families, so that their tokens can be rotated and revoked before they expire.
+ * <p>
+ * A family is started on login and only its latest generation is kept, rotating it is a single compare-and-set on
+ * the generation number. The implementation is selected with {@code application.security.token-store}: {@code jpa}
+ * (default) keeps them in the {@link Token} table, {@code redis} keeps them in Redis with a TTL equal to the token's
+ * expiry.
+ */
+public interface TokenStore {
+    /**
+     * Stores a new family at generation 0.
+     */
+    void save(User user, String tokenId, String familyId, TokenType tokenType, Instant expiresAt);
+
+    /**
+     * @return true if the family is neither revoked nor expired, and is at the given generation
+     */
+    boolean isActive(String familyId, int generation);
+
+    /**
+     * Atomically advances the family from the given generation to the next one.
+     *
+     * @return false if the family is unknown, revoked, expired or at another generation
+     */
+    boolean rotate(String familyId, int generation, String nextTokenId, Instant expiresAt);
+
+    void revoke(String familyId);
+
+    /**
+     * @return the number of families that were revoked
+     */
+    int revokeAllForUser(User user);
+}
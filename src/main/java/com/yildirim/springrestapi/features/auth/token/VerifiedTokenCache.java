@@ -0,0 +1,87 @@
+package com.yildirim.springrestapi.features.auth.token;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Size bounded LRU cache of tokens whose signature has already been verified, keyed by the SHA-256 digest of the token.
+ * <p>
+ * Each entry expires together with the token's own {@code exp} claim, and entries are dropped explicitly when a token
+ * is revoked or the owner's password changes. When disabled through {@code application.security.jwt.cache.enabled}
+ * every lookup falls through to the parser.
+ */
+@Component
+public class VerifiedTokenCache {
+    public static final String CACHE_NAME = "verified-tokens";
+    private final Cache<String, ParsedToken> cache;
+
+    public VerifiedTokenCache(
+            MeterRegistry meterRegistry,
+            @Value("${application.security.jwt.cache.enabled:false}") boolean enabled,
+            @Value("${application.security.jwt.cache.max-size:50000}") long maxSize
+    ) {
+        if (!enabled) {
+            this.cache = null;
+            return;
+        }
+
+        this.cache = CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maxSize)
+                        .expireAfter(Expiry.creating((String digest, ParsedToken token) -> timeToLive(token)))
+                        .recordStats()
+                        .<String, ParsedToken>build(),
+                CACHE_NAME
+        );
+        Gauge.builder("jwt.verified-token-cache.hit-ratio", cache, c -> c.stats().hitRate())
+                .description("Ratio of token validations served without verifying the signature")
+                .register(meterRegistry);
+    }
+
+    private static Duration timeToLive(ParsedToken token) {
+        if (token.expiresAt() == null) {
+            return Duration.ZERO;
+        }
+        final Duration ttl = Duration.between(Instant.now(), token.expiresAt());
+        return ttl.isNegative() ? Duration.ZERO : ttl;
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Returns the cached claims for the token, or verifies it through the given parser and caches the result.
+     * Tokens that fail verification are never cached.
+     */
+    public ParsedToken get(String token, Supplier<ParsedToken> parser) {
+        if (cache == null) {
+            return parser.get();
+        }
+
+        return cache.get(TokenService.digest(token), digest -> parser.get());
+    }
+
+    public void invalidate(String token) {
+        if (cache != null && token != null) {
+            cache.invalidate(TokenService.digest(token));
+        }
+    }
+
+    public void invalidateAllForSubject(String subject) {
+        if (cache != null) {
+            cache.asMap().values().removeIf(token -> subject.equals(token.subject()));
+        }
+    }
+}
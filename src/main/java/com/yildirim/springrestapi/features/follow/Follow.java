@@ -0,0 +1,40 @@
+package com.yildirim.springrestapi.features.follow;
+
+import com.yildirim.springrestapi.common.base.BaseEntity;
+import com.yildirim.springrestapi.features.user.User;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A follow edge: {@code follower} follows {@code following}.
+ * <p>
+ * Mapped as its own entity instead of a {@code @ManyToMany} collection, so following or unfollowing someone is a
+ * single row insert or delete, and neither side's collection is ever loaded. Both directions are listed newest first
+ * by {@code (createdAt, id)}, each backed by its own index.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(
+        name = "user_following",
+        uniqueConstraints = @UniqueConstraint(name = "uk_follow_follower_following", columnNames = {"follower_id", "following_id"}),
+        indexes = {
+                @Index(name = "idx_follow_follower_created", columnList = "follower_id, created_at, id"),
+                @Index(name = "idx_follow_following_created", columnList = "following_id, created_at, id")
+        }
+)
+public class Follow extends BaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "follower_id")
+    private User follower;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "following_id")
+    private User following;
+}
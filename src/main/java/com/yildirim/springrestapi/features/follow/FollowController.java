@@ -0,0 +1,92 @@
+package com.yildirim.springrestapi.features.follow;
+
+import com.yildirim.springrestapi.common.pagination.CursorPage;
+import com.yildirim.springrestapi.features.auth.TokenPrincipal;
+import com.yildirim.springrestapi.features.follow.dto.FollowCountsDto;
+import com.yildirim.springrestapi.features.follow.dto.FollowDto;
+import com.yildirim.springrestapi.features.follow.dto.MutualFollowersDto;
+import com.yildirim.springrestapi.features.follow.dto.RelationshipDto;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/users")
+public class FollowController {
+    private static final int MAX_RELATIONSHIP_CHECKS = 1000;
+    private final FollowService followService;
+    private final RelationshipIndex relationshipIndex;
+
+    /**
+     * @return false if the user was already followed
+     */
+    @PostMapping("/{id}/follow")
+    public boolean follow(
+            @PathVariable @NotBlank @org.hibernate.validator.constraints.UUID String id,
+            @AuthenticationPrincipal UserDetails userDetails
+    ) {
+        return followService.follow(TokenPrincipal.idOf(userDetails), id);
+    }
+
+    /**
+     * @return false if the user wasn't followed
+     */
+    @DeleteMapping("/{id}/follow")
+    public boolean unfollow(
+            @PathVariable @NotBlank @org.hibernate.validator.constraints.UUID String id,
+            @AuthenticationPrincipal UserDetails userDetails
+    ) {
+        return followService.unfollow(TokenPrincipal.idOf(userDetails), id);
+    }
+
+    /**
+     * How the authenticated user is related to each of the given users, answered from the {@link RelationshipIndex}
+     */
+    @PostMapping("/relationships")
+    public Map<String, RelationshipDto> getRelationships(
+            @RequestBody @Size(max = MAX_RELATIONSHIP_CHECKS) Set<String> userIds,
+            @AuthenticationPrincipal UserDetails userDetails
+    ) {
+        return relationshipIndex.relationships(TokenPrincipal.idOf(userDetails), userIds);
+    }
+
+    @GetMapping("/{id}/mutual-followers")
+    public MutualFollowersDto getMutualFollowers(
+            @PathVariable @NotBlank @org.hibernate.validator.constraints.UUID String id,
+            @RequestParam @NotBlank String with,
+            @RequestParam Optional<Integer> size
+    ) {
+        return relationshipIndex.mutualFollowers(id, with, Math.clamp(size.orElse(FollowService.PAGE_SIZE), 0, FollowService.MAX_PAGE_SIZE));
+    }
+
+    @GetMapping("/{id}/follow-counts")
+    public FollowCountsDto getFollowCounts(@PathVariable @NotBlank @org.hibernate.validator.constraints.UUID String id) {
+        return followService.getCounts(id);
+    }
+
+    @GetMapping("/{id}/followers")
+    public CursorPage<FollowDto> getFollowers(
+            @PathVariable @NotBlank @org.hibernate.validator.constraints.UUID String id,
+            @RequestParam Optional<String> cursor,
+            @RequestParam Optional<Integer> size
+    ) {
+        return followService.getFollowers(id, cursor.orElse(null), size.orElse(FollowService.PAGE_SIZE));
+    }
+
+    @GetMapping("/{id}/following")
+    public CursorPage<FollowDto> getFollowing(
+            @PathVariable @NotBlank @org.hibernate.validator.constraints.UUID String id,
+            @RequestParam Optional<String> cursor,
+            @RequestParam Optional<Integer> size
+    ) {
+        return followService.getFollowing(id, cursor.orElse(null), size.orElse(FollowService.PAGE_SIZE));
+    }
+}
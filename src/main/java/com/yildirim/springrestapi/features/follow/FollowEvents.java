@@ -0,0 +1,10 @@
+package com.yildirim.springrestapi.features.follow;
+
+public class FollowEvents {
+
+    public record FollowedEvent(String followerId, String followingId) {
+    }
+
+    public record UnfollowedEvent(String followerId, String followingId) {
+    }
+}
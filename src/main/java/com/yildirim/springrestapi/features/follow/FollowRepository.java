@@ -0,0 +1,96 @@
+package com.yildirim.springrestapi.features.follow;
+
+import com.yildirim.springrestapi.features.follow.dto.FollowCountsDto;
+import com.yildirim.springrestapi.features.follow.dto.FollowDto;
+import com.yildirim.springrestapi.features.follow.dto.FollowEdge;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface FollowRepository extends JpaRepository<Follow, Long> {
+    boolean existsByFollowerIdAndFollowingId(String followerId, String followingId);
+
+    @Modifying
+    @Query("delete from Follow f where f.follower.id = :followerId and f.following.id = :followingId")
+    int deleteByFollowerIdAndFollowingId(@Param("followerId") String followerId, @Param("followingId") String followingId);
+
+    @Query("""
+            select new com.yildirim.springrestapi.features.follow.dto.FollowCountsDto(u.followerCount, u.followingCount)
+            from User u where u.id = :userId
+            """)
+    Optional<FollowCountsDto> findCountsByUserId(@Param("userId") String userId);
+
+    /**
+     * First page of the users following the given user, most recent follow first
+     */
+    @Query("""
+            select new com.yildirim.springrestapi.features.follow.dto.FollowDto(f.id, u.id, u.username, u.displayName, f.createdAt)
+            from Follow f join f.follower u
+            where f.following.id = :userId
+            order by f.createdAt desc, f.id desc
+            """)
+    List<FollowDto> findFirstFollowersPage(@Param("userId") String userId, Limit limit);
+
+    @Query("""
+            select new com.yildirim.springrestapi.features.follow.dto.FollowDto(f.id, u.id, u.username, u.displayName, f.createdAt)
+            from Follow f join f.follower u
+            where f.following.id = :userId
+              and (f.createdAt < :createdAt or (f.createdAt = :createdAt and f.id < :id))
+            order by f.createdAt desc, f.id desc
+            """)
+    List<FollowDto> findFollowersPage(
+            @Param("userId") String userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") long id,
+            Limit limit
+    );
+
+    /**
+     * First page of the users the given user follows, most recent follow first
+     */
+    @Query("""
+            select new com.yildirim.springrestapi.features.follow.dto.FollowDto(f.id, u.id, u.username, u.displayName, f.createdAt)
+            from Follow f join f.following u
+            where f.follower.id = :userId
+            order by f.createdAt desc, f.id desc
+            """)
+    List<FollowDto> findFirstFollowingPage(@Param("userId") String userId, Limit limit);
+
+    @Query("""
+            select new com.yildirim.springrestapi.features.follow.dto.FollowDto(f.id, u.id, u.username, u.displayName, f.createdAt)
+            from Follow f join f.following u
+            where f.follower.id = :userId
+              and (f.createdAt < :createdAt or (f.createdAt = :createdAt and f.id < :id))
+            order by f.createdAt desc, f.id desc
+            """)
+    List<FollowDto> findFollowingPage(
+            @Param("userId") String userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") long id,
+            Limit limit
+    );
+
+    @Query("select new com.yildirim.springrestapi.features.follow.dto.FollowEdge(f.follower.id, f.following.id) from Follow f")
+    Stream<FollowEdge> streamAllEdges();
+
+    @Query("select f.follower.id from Follow f where f.following.id = :userId")
+    List<String> findFollowerIds(@Param("userId") String userId);
+
+    /**
+     * Users followed by the given user, who have more than {@code threshold} followers
+     */
+    @Query("""
+            select u.id from Follow f join f.following u
+            where f.follower.id = :userId and u.followerCount > :threshold
+            """)
+    List<String> findFollowingIdsWithFollowersOver(@Param("userId") String userId, @Param("threshold") long threshold);
+}
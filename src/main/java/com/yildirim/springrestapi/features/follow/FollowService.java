@@ -0,0 +1,128 @@
+package com.yildirim.springrestapi.features.follow;
+
+import com.yildirim.springrestapi.common.config.CacheConfig;
+import com.yildirim.springrestapi.common.pagination.Cursor;
+import com.yildirim.springrestapi.common.pagination.CursorPage;
+import com.yildirim.springrestapi.features.follow.dto.FollowCountsDto;
+import com.yildirim.springrestapi.features.follow.dto.FollowDto;
+import com.yildirim.springrestapi.features.user.UserRepository;
+import com.yildirim.springrestapi.features.user.exceptions.UserNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Follows and unfollows users, and lists both sides of the follow graph.
+ * <p>
+ * Every write is one {@link Follow} row plus an increment of the denormalized follower and following counts on the
+ * two users, so the counts are read from the user's row instead of counted.
+ */
+@RequiredArgsConstructor
+@Service
+@Transactional
+public class FollowService {
+    public static final int PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    private final FollowRepository followRepository;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher publisher;
+
+    /**
+     * @return false if the user was already followed
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#followerId"),
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#followingId")
+    })
+    public boolean follow(String followerId, String followingId) {
+        if (followerId.equals(followingId)) {
+            throw new IllegalArgumentException("Users can't follow themselves");
+        }
+        if (followRepository.existsByFollowerIdAndFollowingId(followerId, followingId)) {
+            return false;
+        }
+        if (userRepository.addToFollowerCount(followingId, 1) == 0) {
+            throw new UserNotFoundException();
+        }
+        userRepository.addToFollowingCount(followerId, 1);
+
+        followRepository.save(Follow.builder()
+                .follower(userRepository.getReferenceById(followerId))
+                .following(userRepository.getReferenceById(followingId))
+                .build());
+        publisher.publishEvent(new FollowEvents.FollowedEvent(followerId, followingId));
+        return true;
+    }
+
+    /**
+     * @return false if the user wasn't followed
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#followerId"),
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#followingId")
+    })
+    public boolean unfollow(String followerId, String followingId) {
+        if (followRepository.deleteByFollowerIdAndFollowingId(followerId, followingId) == 0) {
+            return false;
+        }
+        userRepository.addToFollowerCount(followingId, -1);
+        userRepository.addToFollowingCount(followerId, -1);
+
+        publisher.publishEvent(new FollowEvents.UnfollowedEvent(followerId, followingId));
+        return true;
+    }
+
+    @Transactional(readOnly = true)
+    public FollowCountsDto getCounts(String userId) {
+        return followRepository.findCountsByUserId(userId)
+                .orElseThrow(UserNotFoundException::new);
+    }
+
+    /**
+     * @param cursor {@link CursorPage#nextCursor()} of the previous page, or null for the first page
+     * @param size   number of users per page, capped at {@link #MAX_PAGE_SIZE}
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<FollowDto> getFollowers(String userId, String cursor, int size) {
+        final int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        final Limit limit = Limit.of(pageSize + 1);
+
+        final List<FollowDto> rows;
+        if (cursor == null) {
+            rows = followRepository.findFirstFollowersPage(userId, limit);
+        } else {
+            final Cursor position = Cursor.decode(cursor);
+            rows = followRepository.findFollowersPage(userId, position.createdAt(), position.idAsLong(), limit);
+        }
+        return CursorPage.of(rows, pageSize, FollowService::cursorOf);
+    }
+
+    /**
+     * @param cursor {@link CursorPage#nextCursor()} of the previous page, or null for the first page
+     * @param size   number of users per page, capped at {@link #MAX_PAGE_SIZE}
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<FollowDto> getFollowing(String userId, String cursor, int size) {
+        final int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        final Limit limit = Limit.of(pageSize + 1);
+
+        final List<FollowDto> rows;
+        if (cursor == null) {
+            rows = followRepository.findFirstFollowingPage(userId, limit);
+        } else {
+            final Cursor position = Cursor.decode(cursor);
+            rows = followRepository.findFollowingPage(userId, position.createdAt(), position.idAsLong(), limit);
+        }
+        return CursorPage.of(rows, pageSize, FollowService::cursorOf);
+    }
+
+    private static Cursor cursorOf(FollowDto follow) {
+        return new Cursor(follow.followedAt(), String.valueOf(follow.followId()));
+    }
+}
@@ -0,0 +1,224 @@
+package com.yildirim.springrestapi.features.follow;
+
+import com.yildirim.springrestapi.common.cache.CacheInvalidationBus;
+import com.yildirim.springrestapi.features.follow.dto.FollowEdge;
+import com.yildirim.springrestapi.features.follow.dto.MutualFollowersDto;
+import com.yildirim.springrestapi.features.follow.dto.RelationshipDto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory copy of the follow graph, for answering relationship checks without a query per pair of users.
+ * <p>
+ * Every user is given a dense int id, and the users each user follows and is followed by are kept as compressed
+ * {@link RoaringBitmap}s of those ids, so "does A follow B" is a bitmap lookup and mutual followers are a bitmap
+ * intersection. The index is loaded from the {@link Follow} table on startup and kept up to date from
+ * {@link FollowEvents} once they commit, on this node directly and on the others through the
+ * {@link CacheInvalidationBus}. The bus may drop messages, so the index is also reloaded every
+ * {@code application.follows.index.rebuild-interval}.
+ */
+@Component
+public class RelationshipIndex {
+    private static final Logger log = LoggerFactory.getLogger(RelationshipIndex.class);
+    public static final String REGION = "follows";
+    private static final char FOLLOWED = '+';
+    private static final char UNFOLLOWED = '-';
+    private static final char SEPARATOR = ' ';
+    private final FollowRepository followRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheInvalidationBus invalidationBus;
+    private final Map<String, Integer> denseIds = new ConcurrentHashMap<>();
+    // Guarded by lock, indexed by dense id
+    private final List<String> userIds = new ArrayList<>();
+    private final List<RoaringBitmap> following = new ArrayList<>();
+    private final List<RoaringBitmap> followers = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public RelationshipIndex(
+            FollowRepository followRepository,
+            TransactionTemplate transactionTemplate,
+            CacheInvalidationBus invalidationBus,
+            MeterRegistry meterRegistry
+    ) {
+        this.followRepository = followRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.invalidationBus = invalidationBus;
+        Gauge.builder("follows.index.bytes", this, RelationshipIndex::sizeInBytes)
+                .description("Memory used by the follow bitmaps")
+                .register(meterRegistry);
+        Gauge.builder("follows.index.users", denseIds, Map::size)
+                .register(meterRegistry);
+        // "+follower following" or "-follower following", sent by the node that committed the change
+        invalidationBus.subscribe(REGION, change -> {
+            final int separator = change == null ? -1 : change.indexOf(SEPARATOR);
+            if (separator < 1) {
+                return;
+            }
+            final String followerId = change.substring(1, separator);
+            final String followingId = change.substring(separator + 1);
+            if (change.charAt(0) == FOLLOWED) {
+                follow(followerId, followingId);
+            } else {
+                unfollow(followerId, followingId);
+            }
+        });
+    }
+
+    /**
+     * Loads every follow while holding the write lock, so follows committed during the load are applied after it
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            fixedDelayString = "${application.follows.index.rebuild-interval:PT6H}",
+            initialDelayString = "${application.follows.index.rebuild-interval:PT6H}"
+    )
+    public void rebuild() {
+        final long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            denseIds.clear();
+            userIds.clear();
+            following.clear();
+            followers.clear();
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<FollowEdge> edges = followRepository.streamAllEdges()) {
+                    edges.forEach(edge -> add(edge.followerId(), edge.followingId()));
+                }
+            });
+            log.info("Loaded the follows of {} users in {} ms", denseIds.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onFollowedEvent(FollowEvents.FollowedEvent event) {
+        follow(event.followerId(), event.followingId());
+        invalidationBus.publish(REGION, FOLLOWED + event.followerId() + SEPARATOR + event.followingId());
+    }
+
+    @TransactionalEventListener
+    public void onUnfollowedEvent(FollowEvents.UnfollowedEvent event) {
+        unfollow(event.followerId(), event.followingId());
+        invalidationBus.publish(REGION, UNFOLLOWED + event.followerId() + SEPARATOR + event.followingId());
+    }
+
+    private void follow(String followerId, String followingId) {
+        lock.writeLock().lock();
+        try {
+            add(followerId, followingId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unfollow(String followerId, String followingId) {
+        lock.writeLock().lock();
+        try {
+            final Integer follower = denseIds.get(followerId);
+            final Integer followed = denseIds.get(followingId);
+            if (follower != null && followed != null) {
+                following.get(follower).remove(followed);
+                followers.get(followed).remove(follower);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Requires the write lock
+    private void add(String followerId, String followingId) {
+        final int follower = denseIdOf(followerId);
+        final int followed = denseIdOf(followingId);
+        following.get(follower).add(followed);
+        followers.get(followed).add(follower);
+    }
+
+    // Requires the write lock
+    private int denseIdOf(String userId) {
+        return denseIds.computeIfAbsent(userId, id -> {
+            userIds.add(id);
+            following.add(new RoaringBitmap());
+            followers.add(new RoaringBitmap());
+            return userIds.size() - 1;
+        });
+    }
+
+    /**
+     * @return how the viewer is related to each of the given users
+     */
+    public Map<String, RelationshipDto> relationships(String viewerId, Collection<String> otherIds) {
+        final Map<String, RelationshipDto> relationships = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            final Integer viewer = denseIds.get(viewerId);
+            for (String otherId : otherIds) {
+                final Integer other = denseIds.get(otherId);
+                if (viewer == null || other == null) {
+                    relationships.put(otherId, new RelationshipDto(false, false));
+                } else {
+                    relationships.put(otherId, new RelationshipDto(
+                            following.get(viewer).contains(other),
+                            followers.get(viewer).contains(other)
+                    ));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return relationships;
+    }
+
+    /**
+     * @param limit maximum number of ids to return, the count is always exact
+     */
+    public MutualFollowersDto mutualFollowers(String userId, String otherId, int limit) {
+        lock.readLock().lock();
+        try {
+            final Integer user = denseIds.get(userId);
+            final Integer other = denseIds.get(otherId);
+            if (user == null || other == null) {
+                return new MutualFollowersDto(0, List.of());
+            }
+
+            final RoaringBitmap mutual = RoaringBitmap.and(followers.get(user), followers.get(other));
+            final List<String> sample = new ArrayList<>(Math.min(limit, mutual.getCardinality()));
+            final IntIterator iterator = mutual.getIntIterator();
+            while (iterator.hasNext() && sample.size() < limit) {
+                sample.add(userIds.get(iterator.next()));
+            }
+            return new MutualFollowersDto(mutual.getLongCardinality(), sample);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (int i = 0; i < following.size(); i++) {
+                bytes += following.get(i).getLongSizeInBytes() + followers.get(i).getLongSizeInBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.yildirim.springrestapi.features.follow.dto;
+
+public record FollowCountsDto(
+        long followers,
+        long following
+) {
+}
@@ -0,0 +1,15 @@
+package com.yildirim.springrestapi.features.follow.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * The user on the other side of a follow, and when the follow happened
+ */
+public record FollowDto(
+        long followId,
+        String userId,
+        String username,
+        String displayName,
+        LocalDateTime followedAt
+) {
+}
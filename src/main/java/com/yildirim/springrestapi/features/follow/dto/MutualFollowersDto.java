@@ -0,0 +1,12 @@
+package com.yildirim.springrestapi.features.follow.dto;
+
+import java.util.List;
+
+/**
+ * Users who follow both users, with a sample of their ids
+ */
+public record MutualFollowersDto(
+        long count,
+        List<String> userIds
+) {
+}
@@ -0,0 +1,13 @@
+package com.yildirim.springrestapi.features.follow.dto;
+
+/**
+ * How the viewer and another user are related
+ *
+ * @param following  the viewer follows the user
+ * @param followedBy the user follows the viewer
+ */
+public record RelationshipDto(
+        boolean following,
+        boolean followedBy
+) {
+}
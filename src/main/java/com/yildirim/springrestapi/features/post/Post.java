@@ -17,7 +17,10 @@ import java.util.Set;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        // Matches the keyset order of a user's posts, see PostRepository#findPageByUserId
+        @Index(name = "idx_post_user_created", columnList = "user_id, created_at, id")
+})
 public class Post extends BaseEntity {
     /**
      * Validation Constraints
@@ -40,8 +43,17 @@ public class Post extends BaseEntity {
     @ColumnDefault("false")
     private boolean published = false;
 
+    /**
+     * Number of likes, maintained by {@link PostLikeService} and written behind the likes themselves.
+     * Never written by an entity update, which would overwrite the increments made since the post was loaded.
+     */
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "like_count", nullable = false, updatable = false)
+    private long likeCount = 0;
+
     @Setter
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
@@ -1,14 +1,19 @@
 package com.yildirim.springrestapi.features.post;
 
 
+import com.yildirim.springrestapi.common.pagination.CursorPage;
+import com.yildirim.springrestapi.features.auth.TokenPrincipal;
 import com.yildirim.springrestapi.features.post.dto.CreatePostDto;
+import com.yildirim.springrestapi.features.post.dto.PostResponseDto;
 import com.yildirim.springrestapi.features.post.dto.UpdatePostDto;
+import com.yildirim.springrestapi.features.post.timeline.TimelineService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
-import java.util.List;
 import java.util.Optional;
 
 @RequiredArgsConstructor
@@ -16,25 +21,43 @@ import java.util.Optional;
 @RequestMapping("/posts")
 public class PostController {
     private final PostService postService;
+    private final TimelineService timelineService;
+    private final PostLikeService postLikeService;
 
     @PostMapping
-    public Post createPost(@Valid CreatePostDto createPostDto, Principal principal) {
+    public PostResponseDto createPost(@Valid CreatePostDto createPostDto, Principal principal) {
         return postService.savePost(createPostDto, principal.getName());
     }
 
     @PatchMapping("{id}")
-    public Post updatePost(@Valid UpdatePostDto updatePostDto, @PathVariable Long id) {
+    public PostResponseDto updatePost(@Valid UpdatePostDto updatePostDto, @PathVariable Long id) {
         return postService.updatePost(updatePostDto, id);
     }
 
     @GetMapping("/{id}")
-    public Post getPost(@PathVariable Long id) {
+    public PostResponseDto getPost(@PathVariable Long id) {
         return postService.getPostById(id);
     }
 
+    /**
+     * Home timeline of the authenticated user: their own posts and the posts of everyone they follow, newest first
+     */
+    @GetMapping("/feed")
+    public CursorPage<PostResponseDto> getFeed(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam Optional<String> cursor,
+            @RequestParam Optional<Integer> size
+    ) {
+        return timelineService.getFeed(TokenPrincipal.idOf(userDetails), cursor.orElse(null), size.orElse(PostService.PAGE_SIZE));
+    }
+
     @GetMapping("/user/{userId}")
-    public List<Post> getPostsByUserId(@PathVariable String userId, @RequestParam(defaultValue = "0") Optional<Integer> page) {
-        return postService.getPostsByUserId(userId, page.orElse(0));
+    public CursorPage<PostResponseDto> getPostsByUserId(
+            @PathVariable String userId,
+            @RequestParam Optional<String> cursor,
+            @RequestParam Optional<Integer> size
+    ) {
+        return postService.getPostsByUserId(userId, cursor.orElse(null), size.orElse(PostService.PAGE_SIZE));
     }
 
     @DeleteMapping("/{id}")
@@ -42,5 +65,21 @@ public class PostController {
         postService.deletePost(id);
     }
 
+    /**
+     * @return false if the post was already liked
+     */
+    @PostMapping("/{id}/like")
+    public boolean likePost(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails) {
+        return postLikeService.like(id, TokenPrincipal.idOf(userDetails));
+    }
+
+    /**
+     * @return false if the post wasn't liked
+     */
+    @DeleteMapping("/{id}/like")
+    public boolean unlikePost(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails) {
+        return postLikeService.unlike(id, TokenPrincipal.idOf(userDetails));
+    }
+
 
 }
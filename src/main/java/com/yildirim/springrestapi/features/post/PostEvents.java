@@ -0,0 +1,9 @@
+package com.yildirim.springrestapi.features.post;
+
+import java.time.LocalDateTime;
+
+public class PostEvents {
+
+    public record CreatedEvent(long postId, String authorId, LocalDateTime createdAt, boolean published) {
+    }
+}
@@ -0,0 +1,239 @@
+package com.yildirim.springrestapi.features.post;
+
+import com.yildirim.springrestapi.common.config.CacheConfig;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.BatchUpdateException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Likes and unlikes posts, keeping {@link Post#getLikeCount()} up to date without locking the post's row on every like.
+ * <p>
+ * Who liked what is recorded right away in {@code post_likes}, whose unique key makes liking twice a no-op. The
+ * resulting change of the count is only added to a striped in-memory counter per post, and the counters are written
+ * to {@code posts.like_count} with one batched {@code UPDATE} per flush, so a viral post takes one row update per
+ * flush interval instead of one per like.
+ * <p>
+ * Counts are reconciled with {@code post_likes} for every post liked since the last reconciliation, and for all
+ * posts on startup, which corrects changes lost with a crashed node or left ambiguous by a failed flush.
+ */
+@Service
+public class PostLikeService implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(PostLikeService.class);
+    private static final String INSERT_LIKE = """
+            insert into post_likes (user_id, post_id)
+            select ?, ? where not exists (select 1 from post_likes where user_id = ? and post_id = ?)
+            """;
+    private static final String DELETE_LIKE = "delete from post_likes where user_id = ? and post_id = ?";
+    private static final String UPDATE_LIKE_COUNT = "update posts set like_count = like_count + ? where id = ?";
+    private static final String RECONCILE_LIKE_COUNT =
+            "update posts set like_count = (select count(*) from post_likes where post_id = ?) where id = ?";
+    private static final String RECONCILE_ALL_LIKE_COUNTS = """
+            update posts p set like_count = (select count(*) from post_likes l where l.post_id = p.id)
+            where p.like_count <> (select count(*) from post_likes l where l.post_id = p.id)
+            """;
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    // Counters removed by the previous flush, which a concurrent like may still have added to
+    private List<Map.Entry<Long, LongAdder>> retired = List.of();
+    // Posts liked or unliked since the last reconciliation
+    private final Set<Long> touched = ConcurrentHashMap.newKeySet();
+    private final DistributionSummary flushedRows;
+    private final CacheManager cacheManager;
+
+    public PostLikeService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, CacheManager cacheManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheManager = cacheManager;
+        this.flushedRows = DistributionSummary.builder("posts.likes.flush.rows")
+                .description("Posts whose like count was written per flush")
+                .register(meterRegistry);
+        Gauge.builder("posts.likes.pending", pending, Map::size)
+                .description("Posts with like count changes waiting to be flushed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return false if the user already liked the post
+     * @throws PostNotFoundException if the post doesn't exist
+     */
+    public boolean like(long postId, String userId) {
+        final int inserted;
+        try {
+            inserted = jdbcTemplate.update(INSERT_LIKE, userId, postId, userId, postId);
+        } catch (DuplicateKeyException e) {
+            // Lost a race against a concurrent like by the same user
+            return false;
+        } catch (DataIntegrityViolationException e) {
+            throw new PostNotFoundException(postId);
+        }
+
+        if (inserted == 0) {
+            return false;
+        }
+        pending.computeIfAbsent(postId, id -> new LongAdder()).increment();
+        touched.add(postId);
+        return true;
+    }
+
+    /**
+     * @return false if the user didn't like the post
+     */
+    public boolean unlike(long postId, String userId) {
+        if (jdbcTemplate.update(DELETE_LIKE, userId, postId) == 0) {
+            return false;
+        }
+        pending.computeIfAbsent(postId, id -> new LongAdder()).decrement();
+        touched.add(postId);
+        return true;
+    }
+
+    /**
+     * Writes the pending like count changes in one batch. Changes that the failed batch reports as not written are
+     * kept for the next flush; the rest of a partially applied batch is not written twice.
+     */
+    @Scheduled(fixedDelayString = "${application.likes.flush-interval:PT1S}")
+    public synchronized void flush() {
+        final Map<Long, Long> deltas = new HashMap<>();
+        final List<Map.Entry<Long, LongAdder>> removed = new ArrayList<>(pending.size());
+        for (Map.Entry<Long, LongAdder> entry : retired) {
+            collect(entry, deltas);
+        }
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            collect(entry, deltas);
+            // Likes that still land in a removed counter are picked up by the next flush
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                removed.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+        retired = removed;
+
+        deltas.values().removeIf(delta -> delta == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        final List<Long> postIds = new ArrayList<>(deltas.keySet());
+        final List<Object[]> batch = new ArrayList<>(postIds.size());
+        postIds.forEach(postId -> batch.add(new Object[]{deltas.get(postId), postId}));
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_LIKE_COUNT, batch);
+            flushedRows.record(batch.size());
+        } catch (DataAccessException e) {
+            final int[] counts = e.getMostSpecificCause() instanceof BatchUpdateException batchFailure
+                    ? batchFailure.getUpdateCounts()
+                    : new int[0];
+            int requeued = 0;
+            for (int i = 0; i < postIds.size(); i++) {
+                // Drivers report either a count per row or only the counts of the rows before the failing one
+                if (i >= counts.length || counts[i] == Statement.EXECUTE_FAILED) {
+                    final long postId = postIds.get(i);
+                    pending.computeIfAbsent(postId, id -> new LongAdder()).add(deltas.get(postId));
+                    requeued++;
+                }
+            }
+            log.warn("Could not flush the like counts of {} of {} posts, retrying on the next flush",
+                    requeued, postIds.size(), e);
+        }
+        evictPosts(postIds);
+    }
+
+    /**
+     * Recounts the likes of the posts liked or unliked since the last reconciliation. Posts with changes still
+     * pending are left for the next one, since their count in {@code post_likes} already includes those changes.
+     */
+    @Scheduled(fixedDelayString = "${application.likes.reconcile-interval:PT10M}",
+            initialDelayString = "${application.likes.reconcile-interval:PT10M}")
+    public synchronized void reconcile() {
+        flush();
+        final List<Long> postIds = new ArrayList<>();
+        for (Iterator<Long> it = touched.iterator(); it.hasNext(); ) {
+            final Long postId = it.next();
+            if (!pending.containsKey(postId)) {
+                it.remove();
+                postIds.add(postId);
+            }
+        }
+        if (postIds.isEmpty()) {
+            return;
+        }
+
+        final List<Object[]> batch = new ArrayList<>(postIds.size());
+        postIds.forEach(postId -> batch.add(new Object[]{postId, postId}));
+        try {
+            jdbcTemplate.batchUpdate(RECONCILE_LIKE_COUNT, batch);
+        } catch (DataAccessException e) {
+            log.warn("Could not reconcile the like counts of {} posts, retrying on the next reconciliation",
+                    postIds.size(), e);
+            touched.addAll(postIds);
+        }
+        evictPosts(postIds);
+    }
+
+    /**
+     * Recounts the likes of every post whose count disagrees with {@code post_likes}, which catches the changes a
+     * previous run lost before flushing them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reconcileAll() {
+        flush();
+        try {
+            final int corrected = jdbcTemplate.update(RECONCILE_ALL_LIKE_COUNTS);
+            if (corrected > 0) {
+                log.info("Corrected the like counts of {} posts", corrected);
+                final Cache posts = cacheManager.getCache(CacheConfig.POSTS);
+                if (posts != null) {
+                    posts.clear();
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not reconcile the like counts on startup", e);
+        }
+    }
+
+    private void evictPosts(List<Long> postIds) {
+        // Cached posts carry the like count, so the next read picks up the written value
+        final Cache posts = cacheManager.getCache(CacheConfig.POSTS);
+        if (posts != null) {
+            postIds.forEach(posts::evict);
+        }
+    }
+
+    private static void collect(Map.Entry<Long, LongAdder> entry, Map<Long, Long> deltas) {
+        // Subtracting what was read keeps any increment that lands in between
+        final long delta = entry.getValue().sum();
+        if (delta != 0) {
+            entry.getValue().add(-delta);
+            deltas.merge(entry.getKey(), delta, Long::sum);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // The second flush picks up the counters retired by the first
+        flush();
+        flush();
+    }
+}
@@ -1,12 +1,94 @@
 package com.yildirim.springrestapi.features.post;
 
-import org.springframework.data.domain.Pageable;
+import com.yildirim.springrestapi.features.post.dto.PostResponseDto;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * Read queries select {@link PostResponseDto} directly, joining the author in the same statement,
+ * so serializing a post never loads the entity graph behind it.
+ */
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
-    List<Post> findByUserId(String user_id, Pageable page);
+    String SELECT_RESPONSE = """
+            select new com.yildirim.springrestapi.features.post.dto.PostResponseDto(
+                p.id, p.content, p.published, p.createdAt, u.id, u.username, u.displayName, p.likeCount
+            )
+            from Post p join p.user u
+            """;
+
+    @Query(SELECT_RESPONSE + "where p.id = :id")
+    Optional<PostResponseDto> findResponseById(@Param("id") long id);
+
+    /**
+     * First page of a user's posts, newest first
+     */
+    @Query(SELECT_RESPONSE + """
+            where u.id = :userId
+            order by p.createdAt desc, p.id desc
+            """)
+    List<PostResponseDto> findFirstPageByUserId(@Param("userId") String userId, Limit limit);
+
+    /**
+     * Page of a user's posts that comes right after the given {@code (createdAt, id)}, newest first.
+     * Seeks into {@code idx_post_user_created} instead of skipping rows, so every page costs the same.
+     */
+    @Query(SELECT_RESPONSE + """
+            where u.id = :userId
+              and (p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id))
+            order by p.createdAt desc, p.id desc
+            """)
+    List<PostResponseDto> findPageByUserId(
+            @Param("userId") String userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") long id,
+            Limit limit
+    );
+
+    /**
+     * Posts unpublished since they were pushed to a timeline are left out
+     */
+    @Query(SELECT_RESPONSE + "where p.id in :ids and p.published = true")
+    List<PostResponseDto> findPublishedResponsesByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * First page of the published posts of several users merged together, newest first
+     */
+    @Query(SELECT_RESPONSE + """
+            where u.id in :userIds
+              and p.published = true
+            order by p.createdAt desc, p.id desc
+            """)
+    List<PostResponseDto> findFirstPageByUserIds(@Param("userIds") Collection<String> userIds, Limit limit);
+
+    /**
+     * Page of the published posts of several users that comes right after the given {@code (createdAt, id)}, newest
+     * first
+     */
+    @Query(SELECT_RESPONSE + """
+            where u.id in :userIds
+              and p.published = true
+              and (p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id))
+            order by p.createdAt desc, p.id desc
+            """)
+    List<PostResponseDto> findPageByUserIds(
+            @Param("userIds") Collection<String> userIds,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") long id,
+            Limit limit
+    );
+
+    /**
+     * @return the ids among the given ones of posts written by the user
+     */
+    @Query("select p.id from Post p where p.user.id = :userId and p.id in :ids")
+    List<Long> findIdsByUserIdAndIdIn(@Param("userId") String userId, @Param("ids") Collection<Long> ids);
 }
@@ -1,10 +1,22 @@
 package com.yildirim.springrestapi.features.post;
 
 
+import com.yildirim.springrestapi.common.config.CacheConfig;
+import com.yildirim.springrestapi.common.pagination.Cursor;
+import com.yildirim.springrestapi.common.pagination.CursorPage;
 import com.yildirim.springrestapi.features.post.dto.CreatePostDto;
+import com.yildirim.springrestapi.features.post.dto.PostResponseDto;
 import com.yildirim.springrestapi.features.post.dto.UpdatePostDto;
+import com.yildirim.springrestapi.features.user.UserRepository;
+import com.yildirim.springrestapi.features.user.UserService;
+import com.yildirim.springrestapi.features.user.dto.UserResponseDto;
+import com.yildirim.springrestapi.features.user.exceptions.UserNotFoundException;
 import jakarta.persistence.EntityNotFoundException;
-import org.springframework.data.domain.Pageable;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,15 +25,26 @@ import java.util.List;
 @Service
 @Transactional
 public class PostService {
-    private static final Integer PAGE_SIZE = 10;
-    private static final Integer MAX_PAGE_SIZE = 30;
-    private static final Integer DEFAULT_PAGE_NUMBER = 0;
+    public static final int PAGE_SIZE = 10;
+    public static final int MAX_PAGE_SIZE = 30;
     private final PostRepository postRepository;
-
-    public PostService(PostRepository postRepository) {
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final ApplicationEventPublisher publisher;
+
+    public PostService(
+            PostRepository postRepository,
+            UserRepository userRepository,
+            UserService userService,
+            ApplicationEventPublisher publisher
+    ) {
         this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.publisher = publisher;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.POSTS, key = "#postId")
     public void deletePost(Long postId) {
         try {
             Post post = postRepository.getReferenceById(postId);
@@ -31,16 +54,34 @@ public class PostService {
         }
     }
 
-    public Post getPostById(Long id) {
-        return postRepository.findById(id)
+    @Cacheable(cacheNames = CacheConfig.POSTS, key = "#id", sync = true)
+    public PostResponseDto getPostById(Long id) {
+        return postRepository.findResponseById(id)
                 .orElseThrow(() -> new PostNotFoundException(id));
     }
 
-    public List<Post> getPostsByUserId(String userId, int page) {
-        return postRepository.findByUserId(userId, Pageable.ofSize(PAGE_SIZE).withPage(page));
+    /**
+     * @param cursor {@link CursorPage#nextCursor()} of the previous page, or null for the first page
+     * @param size   number of posts per page, capped at {@link #MAX_PAGE_SIZE}
+     */
+    public CursorPage<PostResponseDto> getPostsByUserId(String userId, String cursor, int size) {
+        final int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        // One extra row tells whether there is a next page
+        final Limit limit = Limit.of(pageSize + 1);
+
+        final List<PostResponseDto> rows;
+        if (cursor == null) {
+            rows = postRepository.findFirstPageByUserId(userId, limit);
+        } else {
+            final Cursor position = Cursor.decode(cursor);
+            rows = postRepository.findPageByUserId(userId, position.createdAt(), position.idAsLong(), limit);
+        }
+
+        return CursorPage.of(rows, pageSize, post -> new Cursor(post.createdAt(), String.valueOf(post.id())));
     }
 
-    public Post updatePost(UpdatePostDto update, Long postId) {
+    @CachePut(cacheNames = CacheConfig.POSTS, key = "#postId")
+    public PostResponseDto updatePost(UpdatePostDto update, Long postId) {
         try {
             var post = postRepository.getReferenceById(postId);
 
@@ -52,7 +93,9 @@ public class PostService {
                 post.setPublished(update.published());
             }
 
-            return postRepository.save(post);
+            postRepository.save(post);
+            // Called on this instance, so the cache is bypassed and the updated row is read back
+            return getPostById(postId);
         } catch (EntityNotFoundException e) {
             throw new PostNotFoundException(postId);
         }
@@ -63,28 +106,21 @@ public class PostService {
         postRepository.save(post);
     }
 
-    public Post savePost(CreatePostDto createPostDto, String userId) {
-        Post post = Post.builder()
+    public PostResponseDto savePost(CreatePostDto createPostDto, String username) {
+        final String userId = userService.findIdByUsername(username);
+        if (userId == null) {
+            throw new UserNotFoundException();
+        }
+        // The author is served from the cache, the post only needs a reference for its foreign key
+        final UserResponseDto author = userService.getUser(userId);
+        Post post = postRepository.save(Post.builder()
                 .content(createPostDto.content())
-                //.user(createPostDto.userId())
-                .build();
-        return postRepository.save(post);
-    }
-
-/*
-    public void updatePostLikes(Post post, int likes) {
-        post.setLikes(likes);
-        postRepository.save(post);
-    }
-
-    public void likePost(Post post) {
-        post.setLikes(post.getLikes() + 1);
-        postRepository.save(post);
-    }
+                .published(createPostDto.published())
+                .user(userRepository.getReferenceById(userId))
+                .build());
 
-    public void unlikePost(Post post) {
-        post.setLikes(post.getLikes() - 1);
-        postRepository.save(post);
+        // Fanned out to the followers' timelines once the transaction commits
+        publisher.publishEvent(new PostEvents.CreatedEvent(post.getId(), userId, post.getCreatedAt(), post.isPublished()));
+        return PostResponseDto.of(post, author);
     }
-*/
 }
@@ -1,10 +1,39 @@
 package com.yildirim.springrestapi.features.post.dto;
 
+import com.yildirim.springrestapi.features.post.Post;
+
+import com.yildirim.springrestapi.features.user.dto.UserResponseDto;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * What the API returns for a post: its own columns, a summary of the author and the number of likes.
+ * Read endpoints select it directly with a constructor expression, see {@code PostRepository}.
+ */
 public record PostResponseDto(
         Long id,
-        String username,
         String content,
+        boolean published,
+        LocalDateTime createdAt,
         String userId,
-        int likes
-) {
+        String username,
+        String displayName,
+        long likes
+) implements Serializable {
+    /**
+     * For a post that was just created, which has no likes yet
+     */
+    public static PostResponseDto of(Post post, UserResponseDto author) {
+        return new PostResponseDto(
+                post.getId(),
+                post.getContent(),
+                post.isPublished(),
+                post.getCreatedAt(),
+                author.id(),
+                author.username(),
+                author.displayName(),
+                0
+        );
+    }
 }
@@ -0,0 +1,107 @@
+package com.yildirim.springrestapi.features.post.timeline;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Keeps timelines on this node, each in a concurrent skip list trimmed to the configured capacity. The number of
+ * timelines is bounded as well, and timelines of users who haven't been active for a while are dropped. A dropped
+ * timeline only loses the posts pushed before it was dropped, so it's meant for single node deployments.
+ */
+@Component
+@ConditionalOnProperty(name = "application.timeline.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryTimelineStore implements TimelineStore {
+    public static final String CACHE_NAME = "timelines";
+    private final Cache<String, Timeline> timelines;
+    private final int capacity;
+
+    public InMemoryTimelineStore(
+            MeterRegistry meterRegistry,
+            @Value("${application.timeline.capacity:800}") int capacity,
+            @Value("${application.timeline.max-timelines:100000}") long maxTimelines,
+            @Value("${application.timeline.idle-timeout:7d}") Duration idleTimeout
+    ) {
+        this.capacity = capacity;
+        this.timelines = CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maxTimelines)
+                        .expireAfterAccess(idleTimeout)
+                        .recordStats()
+                        .build(),
+                CACHE_NAME
+        );
+    }
+
+    @Override
+    public void push(Collection<String> userIds, TimelineEntry entry) {
+        for (String userId : userIds) {
+            timelines.get(userId, id -> new Timeline()).add(entry, capacity);
+        }
+    }
+
+    @Override
+    public List<TimelineEntry> read(String userId, TimelineEntry after, int limit) {
+        final Timeline timeline = timelines.getIfPresent(userId);
+        if (timeline == null) {
+            return List.of();
+        }
+
+        final NavigableSet<TimelineEntry> page = after == null
+                ? timeline.entries
+                : timeline.entries.tailSet(after, false);
+        final List<TimelineEntry> entries = new ArrayList<>(limit);
+        for (TimelineEntry entry : page) {
+            if (entries.size() == limit) {
+                break;
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    @Override
+    public void remove(String userId, Collection<Long> postIds) {
+        final Timeline timeline = timelines.getIfPresent(userId);
+        if (timeline != null) {
+            timeline.removeIf(entry -> postIds.contains(entry.postId()));
+        }
+    }
+
+    private static final class Timeline {
+        private final ConcurrentSkipListSet<TimelineEntry> entries = new ConcurrentSkipListSet<>();
+        // ConcurrentSkipListSet#size walks the whole list
+        private final AtomicInteger size = new AtomicInteger();
+
+        void add(TimelineEntry entry, int capacity) {
+            if (!entries.add(entry)) {
+                return;
+            }
+            if (size.incrementAndGet() > capacity && entries.pollLast() != null) {
+                size.decrementAndGet();
+            }
+        }
+
+        void removeIf(Predicate<TimelineEntry> filter) {
+            for (TimelineEntry entry : entries) {
+                if (filter.test(entry) && entries.remove(entry)) {
+                    size.decrementAndGet();
+                }
+            }
+        }
+    }
+}
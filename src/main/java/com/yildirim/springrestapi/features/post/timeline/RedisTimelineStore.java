@@ -0,0 +1,95 @@
+package com.yildirim.springrestapi.features.post.timeline;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps each timeline in a Redis sorted set of post ids, scored by their creation time in milliseconds.
+ * A push to all of an author's followers is a single pipeline of {@code ZADD} and {@code ZREMRANGEBYRANK} pairs.
+ * Posts created in the same millisecond are ordered by id when the timeline is read.
+ */
+@Component
+@ConditionalOnProperty(name = "application.timeline.store", havingValue = "redis")
+public class RedisTimelineStore implements TimelineStore {
+    static final String KEY_PREFIX = "timeline:";
+    private final StringRedisTemplate redisTemplate;
+    private final int capacity;
+
+    public RedisTimelineStore(
+            StringRedisTemplate redisTemplate,
+            @Value("${application.timeline.capacity:800}") int capacity
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.capacity = capacity;
+    }
+
+    private static long score(LocalDateTime createdAt) {
+        return createdAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime truncate(LocalDateTime createdAt) {
+        return createdAt.truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    @Override
+    public void push(Collection<String> userIds, TimelineEntry entry) {
+        final String member = String.valueOf(entry.postId());
+        final double score = score(entry.createdAt());
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            final StringRedisConnection redis = (StringRedisConnection) connection;
+            for (String userId : userIds) {
+                redis.zAdd(KEY_PREFIX + userId, score, member);
+                // Keep the newest entries, which have the highest scores
+                redis.zRemRange(KEY_PREFIX + userId, 0, -capacity - 1L);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<TimelineEntry> read(String userId, TimelineEntry after, int limit) {
+        final double max = after == null ? Double.POSITIVE_INFINITY : score(after.createdAt());
+        // Entries sharing the cursor's millisecond may come before it, so fetch enough to skip over them
+        final Set<ZSetOperations.TypedTuple<String>> tuples = redisTemplate.opsForZSet()
+                .reverseRangeByScoreWithScores(KEY_PREFIX + userId, Double.NEGATIVE_INFINITY, max, 0, limit * 2L);
+        if (tuples == null) {
+            return List.of();
+        }
+
+        // Compare at the same precision as the scores, so the cursor's own entry is skipped
+        final TimelineEntry cursor = after == null ? null : new TimelineEntry(after.postId(), truncate(after.createdAt()));
+        final List<TimelineEntry> entries = new ArrayList<>(tuples.size());
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            final LocalDateTime createdAt = LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(tuple.getScore().longValue()), ZoneOffset.UTC
+            );
+            final TimelineEntry entry = new TimelineEntry(Long.parseLong(tuple.getValue()), createdAt);
+            if (cursor == null || entry.compareTo(cursor) > 0) {
+                entries.add(entry);
+            }
+        }
+        entries.sort(null);
+        return entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+
+    @Override
+    public void remove(String userId, Collection<Long> postIds) {
+        if (!postIds.isEmpty()) {
+            redisTemplate.opsForZSet().remove(KEY_PREFIX + userId, postIds.stream().map(String::valueOf).toArray());
+        }
+    }
+}
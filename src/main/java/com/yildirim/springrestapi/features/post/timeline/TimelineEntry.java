@@ -0,0 +1,20 @@
+package com.yildirim.springrestapi.features.post.timeline;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * A post in someone's home timeline. Only the keys are kept, the post itself is loaded when the timeline is read.
+ * Ordered newest first, by {@code (createdAt, postId)} like every other post listing.
+ */
+public record TimelineEntry(long postId, LocalDateTime createdAt) implements Comparable<TimelineEntry> {
+    public static final Comparator<TimelineEntry> NEWEST_FIRST = Comparator
+            .comparing(TimelineEntry::createdAt)
+            .thenComparingLong(TimelineEntry::postId)
+            .reversed();
+
+    @Override
+    public int compareTo(TimelineEntry other) {
+        return NEWEST_FIRST.compare(this, other);
+    }
+}
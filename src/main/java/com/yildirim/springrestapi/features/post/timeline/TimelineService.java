@@ -0,0 +1,198 @@
+package com.yildirim.springrestapi.features.post.timeline;
+
+import com.yildirim.springrestapi.common.pagination.Cursor;
+import com.yildirim.springrestapi.common.pagination.CursorPage;
+import com.yildirim.springrestapi.features.follow.FollowEvents;
+import com.yildirim.springrestapi.features.follow.FollowRepository;
+import com.yildirim.springrestapi.features.follow.dto.FollowCountsDto;
+import com.yildirim.springrestapi.features.post.PostEvents;
+import com.yildirim.springrestapi.features.post.PostRepository;
+import com.yildirim.springrestapi.features.post.PostService;
+import com.yildirim.springrestapi.features.post.dto.PostResponseDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds home timelines: the posts of everyone a user follows, and their own, newest first.
+ * <p>
+ * New posts are pushed into the {@link TimelineStore} timelines of the author's followers once they are committed
+ * (fan-out on write), so reading a feed doesn't join follows and posts. Authors with more than
+ * {@code application.timeline.fan-out-threshold} followers are skipped, since one post would mean that many writes;
+ * their posts are instead read at feed time and merged in (fan-out on read).
+ * <p>
+ * Unfollowing someone removes their posts from the follower's timeline once the unfollow is committed.
+ */
+@Service
+public class TimelineService implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(TimelineService.class);
+    private static final Comparator<PostResponseDto> NEWEST_FIRST = Comparator
+            .comparing(PostResponseDto::createdAt)
+            .thenComparing(PostResponseDto::id)
+            .reversed();
+    private final TimelineStore timelineStore;
+    private final FollowRepository followRepository;
+    private final PostRepository postRepository;
+    private final long fanOutThreshold;
+    private final int capacity;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("timeline-fan-out-", 0).factory()
+    );
+    private final Timer fanOutTimer;
+    private final Timer readTimer;
+
+    public TimelineService(
+            TimelineStore timelineStore,
+            FollowRepository followRepository,
+            PostRepository postRepository,
+            MeterRegistry meterRegistry,
+            @Value("${application.timeline.fan-out-threshold:10000}") long fanOutThreshold,
+            @Value("${application.timeline.capacity:800}") int capacity,
+            @Value("${application.timeline.read-slo:50ms}") Duration readSlo
+    ) {
+        this.timelineStore = timelineStore;
+        this.followRepository = followRepository;
+        this.postRepository = postRepository;
+        this.fanOutThreshold = fanOutThreshold;
+        this.capacity = capacity;
+        this.fanOutTimer = Timer.builder("timeline.fan-out")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.readTimer = Timer.builder("timeline.read")
+                .description("Time to build a page of a home timeline")
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(readSlo)
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener
+    public void onPostCreatedEvent(PostEvents.CreatedEvent event) {
+        // Drafts only show up on the author's own profile
+        if (!event.published()) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                fanOutTimer.record(() -> fanOut(event));
+            } catch (RuntimeException e) {
+                log.warn("Could not fan out post {}", event.postId(), e);
+            }
+        });
+    }
+
+    private void fanOut(PostEvents.CreatedEvent event) {
+        final TimelineEntry entry = new TimelineEntry(event.postId(), event.createdAt());
+        final List<String> userIds = new ArrayList<>();
+        userIds.add(event.authorId());
+        final long followers = followRepository.findCountsByUserId(event.authorId())
+                .map(FollowCountsDto::followers)
+                .orElse(0L);
+        if (followers <= fanOutThreshold) {
+            userIds.addAll(followRepository.findFollowerIds(event.authorId()));
+        }
+        timelineStore.push(userIds, entry);
+    }
+
+    @TransactionalEventListener
+    public void onUnfollowedEvent(FollowEvents.UnfollowedEvent event) {
+        executor.execute(() -> {
+            try {
+                removeAuthor(event.followerId(), event.followingId());
+            } catch (RuntimeException e) {
+                log.warn("Could not remove the posts of {} from the timeline of {}",
+                        event.followingId(), event.followerId(), e);
+            }
+        });
+    }
+
+    private void removeAuthor(String userId, String authorId) {
+        final List<TimelineEntry> entries = timelineStore.read(userId, null, capacity);
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        final List<Long> postIds = postRepository.findIdsByUserIdAndIdIn(
+                authorId, entries.stream().map(TimelineEntry::postId).toList()
+        );
+        timelineStore.remove(userId, postIds);
+    }
+
+    /**
+     * @param cursor {@link CursorPage#nextCursor()} of the previous page, or null for the first page
+     * @param size   number of posts per page, capped at {@link PostService#MAX_PAGE_SIZE}
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<PostResponseDto> getFeed(String userId, String cursor, int size) {
+        return readTimer.record(() -> readFeed(userId, cursor, Math.clamp(size, 1, PostService.MAX_PAGE_SIZE)));
+    }
+
+    private CursorPage<PostResponseDto> readFeed(String userId, String cursor, int pageSize) {
+        final Cursor position = cursor == null ? null : Cursor.decode(cursor);
+        final TimelineEntry after = position == null ? null : new TimelineEntry(position.idAsLong(), position.createdAt());
+
+        // One extra row from each source tells whether there is a next page
+        final Limit limit = Limit.of(pageSize + 1);
+        final List<TimelineEntry> pushed = timelineStore.read(userId, after, limit.max());
+        final List<PostResponseDto> posts = new ArrayList<>(hydrate(pushed));
+        boolean hasNext = pushed.size() > pageSize;
+
+        final List<String> pulledAuthors = followRepository.findFollowingIdsWithFollowersOver(userId, fanOutThreshold);
+        if (!pulledAuthors.isEmpty()) {
+            final List<PostResponseDto> pulled = position == null
+                    ? postRepository.findFirstPageByUserIds(pulledAuthors, limit)
+                    : postRepository.findPageByUserIds(pulledAuthors, position.createdAt(), position.idAsLong(), limit);
+            hasNext |= pulled.size() > pageSize;
+            posts.addAll(pulled);
+        }
+
+        // An author who crossed the threshold has posts in both sources
+        final Set<Long> seen = new HashSet<>();
+        final List<PostResponseDto> merged = posts.stream()
+                .sorted(NEWEST_FIRST)
+                .filter(post -> seen.add(post.id()))
+                .toList();
+        hasNext |= merged.size() > pageSize;
+        final List<PostResponseDto> items = merged.subList(0, Math.min(pageSize, merged.size()));
+        final String nextCursor = hasNext && !items.isEmpty()
+                ? new Cursor(items.getLast().createdAt(), String.valueOf(items.getLast().id())).encode()
+                : null;
+        return new CursorPage<>(items, nextCursor);
+    }
+
+    /**
+     * Loads the pushed posts in one query. Posts deleted since they were pushed are skipped.
+     */
+    private List<PostResponseDto> hydrate(List<TimelineEntry> entries) {
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+
+        final Map<Long, PostResponseDto> postsById = postRepository
+                .findPublishedResponsesByIds(entries.stream().map(TimelineEntry::postId).toList())
+                .stream()
+                .collect(Collectors.toMap(PostResponseDto::id, Function.identity()));
+        return entries.stream()
+                .map(entry -> postsById.get(entry.postId()))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,29 @@
+package com.yildirim.springrestapi.features.post.timeline;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps a bounded home timeline per user, which posts are pushed into when they are created.
+ * <p>
+ * Only the newest {@code application.timeline.capacity} entries of each timeline are kept. The implementation is
+ * selected with {@code application.timeline.store}: {@code memory} (default) keeps them on this node, {@code redis}
+ * keeps them in sorted sets shared by all nodes.
+ */
+public interface TimelineStore {
+    /**
+     * Adds the entry to the timeline of every given user.
+     */
+    void push(Collection<String> userIds, TimelineEntry entry);
+
+    /**
+     * @param after the last entry of the previous page, or null for the first page
+     * @return up to {@code limit} entries that come after {@code after}, newest first
+     */
+    List<TimelineEntry> read(String userId, TimelineEntry after, int limit);
+
+    /**
+     * Removes the given posts from the user's timeline. Posts that aren't in it are ignored.
+     */
+    void remove(String userId, Collection<Long> postIds);
+}
@@ -40,6 +40,13 @@ public class User extends BaseEntity {
     @Builder.Default
     private int flags = 0;
 
+    /**
+     * Incremented on every security relevant change, so that access tokens issued before it can be detected
+     */
+    @Column(columnDefinition = "integer default 0")
+    @Builder.Default
+    private int securityVersion = 0;
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
@@ -97,22 +104,22 @@ public class User extends BaseEntity {
     @JoinTable(
             name = "post_likes",
             joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "post_id")
+            inverseJoinColumns = @JoinColumn(name = "post_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_post_likes_user_post", columnNames = {"user_id", "post_id"})
     )
     private List<Post> postLikes;
 
-    // Users that this user is following
-    @ManyToMany(cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
-    @JoinTable(
-            name = "user_following",
-            joinColumns = @JoinColumn(name = "follower_id"),
-            inverseJoinColumns = @JoinColumn(name = "following_id")
-    )
-    private List<User> following;
+    /**
+     * Maintained incrementally by {@code FollowService}, the follows themselves are {@code Follow} rows. Never written
+     * by an entity update, which would overwrite the increments made since the user was loaded.
+     */
+    @Column(nullable = false, updatable = false, columnDefinition = "bigint default 0")
+    @Builder.Default
+    private long followerCount = 0;
 
-    // Users that are following this user
-    @ManyToMany(mappedBy = "following", cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
-    private List<User> followers;
+    @Column(nullable = false, updatable = false, columnDefinition = "bigint default 0")
+    @Builder.Default
+    private long followingCount = 0;
 
     // Custom Getters, Setters and Methods
     @Override
@@ -176,18 +183,14 @@ public class User extends BaseEntity {
         this.postLikes = postLikes;
     }
 
-    protected void setFollowing(List<User> following) {
-        this.following = following;
-    }
-
-    protected void setFollowers(List<User> followers) {
-        this.followers = followers;
-    }
-
     public void setFlags(int userFlags) {
         this.flags = userFlags;
     }
 
+    public void incrementSecurityVersion() {
+        this.securityVersion++;
+    }
+
     public boolean isDisabled() {
         return Flags.isFlagSet(this.flags, Flags.UserFlag.DISABLED);
     }
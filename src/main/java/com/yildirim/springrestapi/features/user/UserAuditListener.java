@@ -1,19 +1,29 @@
 package com.yildirim.springrestapi.features.user;
 
+import com.yildirim.springrestapi.common.config.CacheConfig;
 import jakarta.persistence.PostUpdate;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 @Component
 public class UserAuditListener {
     private final ApplicationEventPublisher publisher;
+    private final CacheManager cacheManager;
 
-    public UserAuditListener(ApplicationEventPublisher publisher) {
+    public UserAuditListener(ApplicationEventPublisher publisher, CacheManager cacheManager) {
         this.publisher = publisher;
+        this.cacheManager = cacheManager;
     }
 
     @PostUpdate
     public void postUpdate(User user) {
+        // Applied once the transaction commits
+        final Cache users = cacheManager.getCache(CacheConfig.USERS);
+        if (users != null) {
+            users.evict(user.getId());
+        }
         publisher.publishEvent(new UserEvents.UpdatedEvent(user));
     }
 }
@@ -1,6 +1,11 @@
 package com.yildirim.springrestapi.features.user;
 
+import com.yildirim.springrestapi.common.pagination.CursorPage;
+import com.yildirim.springrestapi.features.user.dto.ExistenceCheckDto;
+import com.yildirim.springrestapi.features.user.dto.ExistenceResultDto;
 import com.yildirim.springrestapi.features.user.dto.RegisterUserDto;
+import com.yildirim.springrestapi.features.user.dto.UserFilter;
+import com.yildirim.springrestapi.features.user.dto.UserResponseDto;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -8,14 +13,17 @@ import jakarta.validation.constraints.PastOrPresent;
 import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -24,18 +32,37 @@ import java.util.UUID;
 @RestController
 @RequestMapping("/users")
 public class UserController {
+    private static final String EXPORT_MEDIA_TYPE = "application/x-ndjson";
     private final UserService userService;
+    private final UserExporter userExporter;
+    private final UserExistenceIndex userExistenceIndex;
     private final UserRepository userRepository;
     private final ApplicationEventPublisher publisher;
 
     @GetMapping
-    public List<User> getAllUsers() {
-        return userService.getAllUsers();
+    public CursorPage<UserResponseDto> getUsers(
+            UserFilter filter,
+            @RequestParam Optional<String> cursor,
+            @RequestParam Optional<Integer> size
+    ) {
+        return userService.getUsers(filter, cursor.orElse(null), size.orElse(UserService.PAGE_SIZE));
+    }
+
+    /**
+     * Streams every matching user as newline delimited JSON
+     */
+    @GetMapping(value = "/export", produces = EXPORT_MEDIA_TYPE)
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<StreamingResponseBody> exportUsers(UserFilter filter) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(EXPORT_MEDIA_TYPE))
+                .body(output -> userExporter.export(filter, output));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<User> getUser(@PathVariable @org.hibernate.validator.constraints.UUID UUID id) {
-        return userRepository.findById(id.toString()).map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    public UserResponseDto getUser(@PathVariable @org.hibernate.validator.constraints.UUID UUID id) {
+        return userService.getUser(id.toString());
     }
 
     @GetMapping("/exists")
@@ -48,6 +75,14 @@ public class UserController {
         return userRepository.existsByIdAndEmailAndUsername(idValue, email.orElse(null), username.orElse(null));
     }
 
+    /**
+     * Checks many usernames and emails at once, most of them without touching the database
+     */
+    @PostMapping("/exists")
+    public ExistenceResultDto usersExist(@RequestBody @Valid ExistenceCheckDto request) {
+        return userExistenceIndex.check(request);
+    }
+
     @PostMapping("/register")
     public User register(@RequestBody @Valid RegisterUserDto registerDto) {
         var user = this.userService.saveUser(registerDto);
@@ -108,18 +143,6 @@ public class UserController {
         // userService.deleteUser(id);
     }
 
-//    @GetMapping("/followers/{id}")
-//    public List<User> getFollowers(@PathVariable @NotBlank @org.hibernate.validator.constraints.UUID String id,
-//                                   @RequestParam(defaultValue = "0") int page
-//    ){
-//        return userService.getFollowers(id, page);
-//    }
-//
-//    @GetMapping("/following/{id}")
-//    public List<User> getFollowing(@PathVariable @NotBlank @org.hibernate.validator.constraints.UUID String id) {
-//        return userService.getFollowing(id, page);
-//    }
-//
 //    @GetMapping("/me")
 //    public User getMe(@AuthenticationPrincipal UserDetails userDetails) {
 //        return userService.getMe(userDetails);
@@ -2,21 +2,26 @@ package com.yildirim.springrestapi.features.user;
 
 public class UserEvents {
 
-    public record EmailUpdatedEvent(User user) {
+    public sealed interface UserEvent permits EmailUpdatedEvent, RegisteredEvent, UsernameUpdatedEvent, UpdatedEvent,
+            LoginFromNewDeviceEvent, PasswordChangedEvent {
+        User user();
     }
 
-    public record RegisteredEvent(User user) {
+    public record EmailUpdatedEvent(User user) implements UserEvent {
     }
 
-    public record UsernameUpdatedEvent(User user) {
+    public record RegisteredEvent(User user) implements UserEvent {
     }
 
-    public record UpdatedEvent(User user) {
+    public record UsernameUpdatedEvent(User user) implements UserEvent {
     }
 
-    public record LoginFromNewDeviceEvent(User user, DeviceInfo deviceInfo) {
+    public record UpdatedEvent(User user) implements UserEvent {
     }
 
-    public record PasswordChangedEvent(User user) {
+    public record LoginFromNewDeviceEvent(User user, DeviceInfo deviceInfo) implements UserEvent {
+    }
+
+    public record PasswordChangedEvent(User user) implements UserEvent {
     }
 }
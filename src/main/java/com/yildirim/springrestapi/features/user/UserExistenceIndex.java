@@ -0,0 +1,268 @@
+package com.yildirim.springrestapi.features.user;
+
+import com.yildirim.springrestapi.common.cache.CacheInvalidationBus;
+import com.yildirim.springrestapi.common.util.BloomFilter;
+import com.yildirim.springrestapi.features.user.dto.ExistenceCheckDto;
+import com.yildirim.springrestapi.features.user.dto.ExistenceResultDto;
+import com.yildirim.springrestapi.features.user.dto.UserIdentifiersDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Answers whether usernames and emails are taken, querying the database only for values that might be.
+ * <p>
+ * Every username and email is put into a {@link BloomFilter} on startup and whenever a user registers or changes
+ * them. A value the filter has never seen is reported as free without any I/O; the rest are checked with one query
+ * per kind. Values are lower-cased before they are put or looked up, which can only add false positives.
+ * Values a user changed away from stay in the filter, so they are also resolved by the database.
+ * <p>
+ * Once more values were put than the filters were sized for, they are rebuilt at twice the size in the background,
+ * while the current filters keep answering with a growing false positive rate.
+ * <p>
+ * Values committed on other nodes arrive through the {@link CacheInvalidationBus}, as a filter that misses one would
+ * report a taken value as free. The bus may drop messages, so the filters are also rebuilt from the database every
+ * {@code application.users.existence-filter.rebuild-interval}.
+ */
+@Component
+public class UserExistenceIndex implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(UserExistenceIndex.class);
+    public static final String REGION = "user-identifiers";
+    private static final char USERNAME = 'u';
+    private static final char EMAIL = 'e';
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheInvalidationBus invalidationBus;
+    private final long minExpectedInsertions;
+    private final double falsePositiveRate;
+    private final Counter filtered;
+    private final Counter queried;
+    private final Counter falsePositives;
+    private volatile Filters filters;
+    // Guarded by this
+    private long insertions;
+    // Values put while the filters are rebuilt, replayed into the new filters; guarded by this
+    private List<UserIdentifiersDto> putDuringRebuild;
+    // Whether a rebuild of full filters was handed to the executor; guarded by this
+    private boolean growing;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("user-existence-rebuild-", 0).factory()
+    );
+
+    public UserExistenceIndex(
+            UserRepository userRepository,
+            TransactionTemplate transactionTemplate,
+            CacheInvalidationBus invalidationBus,
+            MeterRegistry meterRegistry,
+            @Value("${application.users.existence-filter.expected-insertions:100000}") long minExpectedInsertions,
+            @Value("${application.users.existence-filter.false-positive-rate:0.01}") double falsePositiveRate
+    ) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.invalidationBus = invalidationBus;
+        this.minExpectedInsertions = minExpectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filtered = Counter.builder("users.exists.lookups").tag("result", "filtered").register(meterRegistry);
+        this.queried = Counter.builder("users.exists.lookups").tag("result", "queried").register(meterRegistry);
+        this.falsePositives = Counter.builder("users.exists.lookups").tag("result", "false-positive").register(meterRegistry);
+        Gauge.builder("users.exists.filter.bytes", this, index -> index.filters == null ? 0 : index.filters.sizeInBytes())
+                .register(meterRegistry);
+        invalidationBus.subscribe(REGION, value -> {
+            if (value == null || value.length() < 2) {
+                return;
+            }
+            final String identifier = value.substring(1);
+            put(value.charAt(0) == USERNAME
+                    ? new UserIdentifiersDto(identifier, null)
+                    : new UserIdentifiersDto(null, identifier));
+        });
+    }
+
+    private record Filters(BloomFilter usernames, BloomFilter emails, long capacity) {
+        Filters(long capacity, double falsePositiveRate) {
+            this(new BloomFilter(capacity, falsePositiveRate), new BloomFilter(capacity, falsePositiveRate), capacity);
+        }
+
+        void put(UserIdentifiersDto user) {
+            if (user.username() != null) {
+                usernames.put(normalize(user.username()));
+            }
+            if (user.email() != null) {
+                emails.put(normalize(user.email()));
+            }
+        }
+
+        long sizeInBytes() {
+            return usernames.sizeInBytes() + emails.sizeInBytes();
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            fixedDelayString = "${application.users.existence-filter.rebuild-interval:PT6H}",
+            initialDelayString = "${application.users.existence-filter.rebuild-interval:PT6H}"
+    )
+    public void rebuild() {
+        synchronized (this) {
+            if (putDuringRebuild != null) {
+                return;
+            }
+            putDuringRebuild = new ArrayList<>();
+        }
+
+        final long start = System.nanoTime();
+        final Filters rebuilt;
+        final long loaded;
+        try {
+            final long users = userRepository.count();
+            rebuilt = new Filters(Math.max(minExpectedInsertions, users * 2), falsePositiveRate);
+            loaded = transactionTemplate.execute(status -> {
+                try (Stream<UserIdentifiersDto> all = userRepository.streamAllIdentifiers()) {
+                    return all.mapToLong(user -> {
+                        rebuilt.put(user);
+                        return 1;
+                    }).sum();
+                }
+            });
+        } catch (RuntimeException e) {
+            // Lets the next rebuild start
+            synchronized (this) {
+                putDuringRebuild = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            putDuringRebuild.forEach(rebuilt::put);
+            insertions = loaded + putDuringRebuild.size();
+            putDuringRebuild = null;
+            growing = false;
+            filters = rebuilt;
+        }
+        log.info("Loaded {} users into the existence filters in {} ms", loaded, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Puts the user's values into this node's filters and sends them to the other nodes
+     */
+    private void putAndPublish(User entity) {
+        put(new UserIdentifiersDto(entity.getUsername(), entity.getEmail()));
+        if (entity.getUsername() != null) {
+            invalidationBus.publish(REGION, USERNAME + entity.getUsername());
+        }
+        if (entity.getEmail() != null) {
+            invalidationBus.publish(REGION, EMAIL + entity.getEmail());
+        }
+    }
+
+    /**
+     * Runs on the thread that committed the change or received it from the bus, so a rebuild of full filters is left
+     * to the executor.
+     */
+    private void put(UserIdentifiersDto user) {
+        synchronized (this) {
+            if (putDuringRebuild != null) {
+                putDuringRebuild.add(user);
+            }
+            if (filters == null) {
+                return;
+            }
+            filters.put(user);
+            if (++insertions <= filters.capacity() || growing) {
+                return;
+            }
+            growing = true;
+        }
+        executor.execute(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    growing = false;
+                }
+                log.warn("Could not rebuild the full existence filters", e);
+            }
+        });
+    }
+
+    @TransactionalEventListener
+    public void onRegisteredEvent(UserEvents.RegisteredEvent event) {
+        putAndPublish(event.user());
+    }
+
+    @TransactionalEventListener
+    public void onUsernameUpdatedEvent(UserEvents.UsernameUpdatedEvent event) {
+        putAndPublish(event.user());
+    }
+
+    @TransactionalEventListener
+    public void onEmailUpdatedEvent(UserEvents.EmailUpdatedEvent event) {
+        putAndPublish(event.user());
+    }
+
+    public ExistenceResultDto check(ExistenceCheckDto request) {
+        final Filters current = filters;
+        return new ExistenceResultDto(
+                check(request.usernames(), current == null ? null : current.usernames(), userRepository::findExistingUsernames),
+                check(request.emails(), current == null ? null : current.emails(), userRepository::findExistingEmails)
+        );
+    }
+
+    /**
+     * @param filter null while the filters are being loaded, in which case every value is queried
+     */
+    private Map<String, Boolean> check(
+            Set<String> values,
+            BloomFilter filter,
+            Function<Collection<String>, List<String>> findExisting
+    ) {
+        if (values == null || values.isEmpty()) {
+            return Map.of();
+        }
+
+        final Map<String, Boolean> result = new LinkedHashMap<>();
+        final List<String> candidates = new ArrayList<>();
+        for (String value : values) {
+            final boolean possible = filter == null || filter.mightContain(normalize(value));
+            result.put(value, false);
+            if (possible) {
+                candidates.add(value);
+            }
+        }
+        filtered.increment(values.size() - candidates.size());
+        if (candidates.isEmpty()) {
+            return result;
+        }
+
+        queried.increment(candidates.size());
+        final List<String> existing = findExisting.apply(candidates);
+        existing.forEach(value -> result.put(value, true));
+        falsePositives.increment(candidates.size() - existing.size());
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,75 @@
+package com.yildirim.springrestapi.features.user;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.yildirim.springrestapi.features.user.dto.UserFilter;
+import com.yildirim.springrestapi.features.user.dto.UserResponseDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.stream.Stream;
+
+/**
+ * Writes every user matching a filter as newline delimited JSON, one {@link UserResponseDto} per line.
+ * <p>
+ * Rows are read through a forward-only JDBC cursor and detached as soon as they are written, so memory use stays
+ * the same however many users are exported.
+ */
+@Component
+public class UserExporter {
+    private static final int FETCH_SIZE = 500;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter writer;
+
+    public UserExporter(EntityManager entityManager, PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // The generator is flushed by the response as its buffer fills, not after every user
+        this.writer = objectMapper.writerFor(UserResponseDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public void export(UserFilter filter, OutputStream output) {
+        transactionTemplate.executeWithoutResult(status -> {
+            final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            final CriteriaQuery<User> query = cb.createQuery(User.class);
+            final Root<User> root = query.from(User.class);
+            query.select(root)
+                    .where(UserSpecifications.matching(filter).toPredicate(root, query, cb))
+                    .orderBy(QueryUtils.toOrders(UserSpecifications.NEWEST_FIRST, root, cb));
+
+            try (Stream<User> users = entityManager.createQuery(query)
+                    .setHint(AvailableHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                    .setHint(AvailableHints.HINT_READ_ONLY, true)
+                    .getResultStream();
+                 JsonGenerator generator = writer.createGenerator(output)) {
+                generator.setRootValueSeparator(null);
+                users.forEach(user -> {
+                    try {
+                        writer.writeValue(generator, new UserResponseDto(user));
+                        generator.writeRaw('\n');
+                        entityManager.detach(user);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
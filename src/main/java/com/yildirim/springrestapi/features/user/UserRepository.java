@@ -1,10 +1,17 @@
 package com.yildirim.springrestapi.features.user;
 
+import com.yildirim.springrestapi.features.user.dto.UserIdentifiersDto;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 @Repository
@@ -17,11 +24,32 @@ public interface UserRepository extends JpaRepository<User, String>, JpaSpecific
 
     Optional<User> getByUsername(String username);
 
+    @Query("select u.id from User u where u.username = :username")
+    Optional<String> findIdByUsername(@Param("username") String username);
+
     Boolean existsByUsername(String username);
 
     Boolean existsByEmail(String email);
 
     Boolean existsByIdAndEmailAndUsername(String id, String email, String username);
 
+    @Query("select new com.yildirim.springrestapi.features.user.dto.UserIdentifiersDto(u.username, u.email) from User u")
+    Stream<UserIdentifiersDto> streamAllIdentifiers();
+
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Native, as the count columns are not updatable through the entity
+    @Modifying
+    @Query(value = "update users set follower_count = follower_count + :delta where id = :userId", nativeQuery = true)
+    int addToFollowerCount(@Param("userId") String userId, @Param("delta") long delta);
+
+    @Modifying
+    @Query(value = "update users set following_count = following_count + :delta where id = :userId", nativeQuery = true)
+    int addToFollowingCount(@Param("userId") String userId, @Param("delta") long delta);
+
     //List<User> findByDisplayNameContainingIgnoreCaseAndUsernameContainingIgnoreCase(String displayName, String username, Pageable page);
 }
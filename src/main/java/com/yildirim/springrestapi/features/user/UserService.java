@@ -1,36 +1,85 @@
 package com.yildirim.springrestapi.features.user;
 
-import com.yildirim.springrestapi.features.auth.AuthenticationService;
+import com.yildirim.springrestapi.common.config.CacheConfig;
+import com.yildirim.springrestapi.common.pagination.Cursor;
+import com.yildirim.springrestapi.common.pagination.CursorPage;
+import com.yildirim.springrestapi.features.auth.PasswordPolicy;
+import com.yildirim.springrestapi.features.auth.PasswordViolation;
+import com.yildirim.springrestapi.features.auth.token.TokenService;
 import com.yildirim.springrestapi.features.auth.Role;
 import com.yildirim.springrestapi.features.user.dto.RegisterUserDto;
 import com.yildirim.springrestapi.features.user.dto.UpdateUserDto;
+import com.yildirim.springrestapi.features.user.dto.UserFilter;
+import com.yildirim.springrestapi.features.user.dto.UserResponseDto;
 import com.yildirim.springrestapi.features.user.exceptions.UserNotFoundException;
 import com.yildirim.springrestapi.features.user.exceptions.UserUpdateException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 @Service
 @Transactional
 public class UserService {
+    public static final int PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final AuthenticationService authService;
+    private final PasswordPolicy passwordPolicy;
     private final ApplicationEventPublisher publisher;
+    private final CacheManager cacheManager;
+    private final TokenService tokenService;
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#id", sync = true)
+    public UserResponseDto getUser(String id) throws UserNotFoundException {
+        return userRepository.findById(id)
+                .map(UserResponseDto::new)
+                .orElseThrow(UserNotFoundException::new);
+    }
+
+    /**
+     * @return the id of the user with the given username, or null if there is none, which is not cached
+     */
+    @Cacheable(cacheNames = CacheConfig.USER_IDS, key = "#username", sync = true)
+    public String findIdByUsername(String username) {
+        return userRepository.findIdByUsername(username).orElse(null);
+    }
+
+    /**
+     * @param cursor {@link CursorPage#nextCursor()} of the previous page, or null for the first page
+     * @param size   number of users per page, capped at {@link #MAX_PAGE_SIZE}
+     */
+    public CursorPage<UserResponseDto> getUsers(UserFilter filter, String cursor, int size) {
+        final int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        Specification<User> specification = UserSpecifications.matching(filter);
+        if (cursor != null) {
+            specification = specification.and(UserSpecifications.after(Cursor.decode(cursor)));
+        }
+
+        // One extra row tells whether there is a next page
+        final List<User> rows = userRepository.findBy(specification, query -> query
+                .sortBy(UserSpecifications.NEWEST_FIRST)
+                .limit(pageSize + 1)
+                .all()
+        );
+        return CursorPage.of(rows, pageSize, user -> new Cursor(user.getCreatedAt(), user.getId()))
+                .map(UserResponseDto::new);
     }
 
     public User saveUser(RegisterUserDto userDto) {
         return userRepository.save(User.builder()
                 .username(userDto.username())
+                .email(userDto.email())
                 .flags(0)
                 .birthDate(userDto.birthDate())
                 .displayName(userDto.displayName())
@@ -43,10 +92,13 @@ public class UserService {
     }
 
     private String handlePasswordChange(String password) {
-        if (authService.isValidPassword(password)) {
+        var violations = passwordPolicy.validate(password);
+        if (violations.isEmpty()) {
             return passwordEncoder.encode(password);
         } else {
-            throw new IllegalArgumentException("Invalid password");
+            throw new IllegalArgumentException("Invalid password: " + violations.stream()
+                    .map(PasswordViolation::getMessage)
+                    .collect(Collectors.joining(", ")));
         }
     }
 
@@ -55,7 +107,10 @@ public class UserService {
             User user = userRepository.getReferenceById(id);
             user.setDeleted(true);
             user.setPrivacy(UserPrivacy.PRIVATE);
+            user.incrementSecurityVersion();
             userRepository.save(user);
+            // Refreshing is refused for a deleted user anyway, this also drops the stored families
+            tokenService.revokeAllUserTokens(user);
         } catch (EntityNotFoundException e) {
             throw new UserNotFoundException();
         }
@@ -95,8 +150,12 @@ public class UserService {
             if (username.equals(user.getUsername())) {
                 throw new UserUpdateException("New username cannot be the same as the old username");
             }
+            // The cache applies the eviction once the transaction commits
+            Objects.requireNonNull(cacheManager.getCache(CacheConfig.USER_IDS)).evict(user.getUsername());
             user.setUsername(username);
+            user.incrementSecurityVersion();
             userRepository.save(user);
+            publisher.publishEvent(new UserEvents.UsernameUpdatedEvent(user));
         } catch (EntityNotFoundException e) {
             throw new UserNotFoundException();
         }
@@ -109,6 +168,7 @@ public class UserService {
                 throw new UserUpdateException("New password cannot be the same as the old password");
             }
             user.setPassword(handlePasswordChange(password));
+            user.incrementSecurityVersion();
             userRepository.save(user);
             publisher.publishEvent(new UserEvents.PasswordChangedEvent(user));
         } catch (EntityNotFoundException e) {
@@ -0,0 +1,78 @@
+package com.yildirim.springrestapi.features.user;
+
+import com.yildirim.springrestapi.common.pagination.Cursor;
+import com.yildirim.springrestapi.features.user.dto.UserFilter;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link Specification}s for listing users with {@link UserRepository}.
+ */
+public final class UserSpecifications {
+    /**
+     * Keyset order of user listings, newest first
+     */
+    public static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    private UserSpecifications() {
+    }
+
+    public static Specification<User> matching(UserFilter filter) {
+        return (root, query, cb) -> {
+            final List<Predicate> predicates = new ArrayList<>();
+            if (filter.role() != null) {
+                predicates.add(cb.equal(root.get("role"), filter.role()));
+            }
+            if (filter.privacy() != null) {
+                predicates.add(cb.equal(root.get("privacy"), filter.privacy()));
+            }
+            if (filter.createdAfter() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), filter.createdAfter()));
+            }
+            if (filter.createdBefore() != null) {
+                predicates.add(cb.lessThan(root.get("createdAt"), filter.createdBefore()));
+            }
+
+            final int withMask = maskOf(filter.withFlags());
+            final int withoutMask = maskOf(filter.withoutFlags());
+            if (withMask != 0) {
+                final Expression<Integer> setFlags = cb.function("bitand", Integer.class, root.get("flags"), cb.literal(withMask));
+                predicates.add(cb.equal(setFlags, withMask));
+            }
+            if (withoutMask != 0) {
+                final Expression<Integer> setFlags = cb.function("bitand", Integer.class, root.get("flags"), cb.literal(withoutMask));
+                predicates.add(cb.equal(setFlags, 0));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Users that come after the cursor in {@link #NEWEST_FIRST} order
+     */
+    public static Specification<User> after(Cursor cursor) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("createdAt"), cursor.createdAt()),
+                cb.and(
+                        cb.equal(root.get("createdAt"), cursor.createdAt()),
+                        cb.lessThan(root.get("id"), cursor.id())
+                )
+        );
+    }
+
+    private static int maskOf(Set<Flags.UserFlag> flags) {
+        int mask = 0;
+        if (flags != null) {
+            for (Flags.UserFlag flag : flags) {
+                mask = Flags.setFlag(mask, flag);
+            }
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,12 @@
+package com.yildirim.springrestapi.features.user.dto;
+
+import jakarta.validation.constraints.Size;
+
+import java.util.Set;
+
+public record ExistenceCheckDto(
+        @Size(max = ExistenceCheckDto.MAX_VALUES) Set<String> usernames,
+        @Size(max = ExistenceCheckDto.MAX_VALUES) Set<String> emails
+) {
+    public static final int MAX_VALUES = 100;
+}
@@ -0,0 +1,12 @@
+package com.yildirim.springrestapi.features.user.dto;
+
+import java.util.Map;
+
+/**
+ * Whether each of the requested usernames and emails is taken
+ */
+public record ExistenceResultDto(
+        Map<String, Boolean> usernames,
+        Map<String, Boolean> emails
+) {
+}
@@ -0,0 +1,25 @@
+package com.yildirim.springrestapi.features.user.dto;
+
+import com.yildirim.springrestapi.features.auth.Role;
+import com.yildirim.springrestapi.features.user.Flags;
+import com.yildirim.springrestapi.features.user.UserPrivacy;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Optional criteria for listing users, bound from the query string. Criteria that are null are not applied.
+ *
+ * @param withFlags    flags that must all be set
+ * @param withoutFlags flags that must all be unset
+ */
+public record UserFilter(
+        Role role,
+        UserPrivacy privacy,
+        Set<Flags.UserFlag> withFlags,
+        Set<Flags.UserFlag> withoutFlags,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdAfter,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdBefore
+) {
+}
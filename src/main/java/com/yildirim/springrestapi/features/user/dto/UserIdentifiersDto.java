@@ -0,0 +1,7 @@
+package com.yildirim.springrestapi.features.user.dto;
+
+public record UserIdentifiersDto(
+        String username,
+        String email
+) {
+}
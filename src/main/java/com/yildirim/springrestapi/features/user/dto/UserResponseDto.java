@@ -6,6 +6,7 @@ import com.yildirim.springrestapi.features.user.Gender;
 import com.yildirim.springrestapi.features.user.User;
 import com.yildirim.springrestapi.features.user.UserPrivacy;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 
 public record UserResponseDto(
@@ -20,10 +21,12 @@ public record UserResponseDto(
         LocalDateTime disabledAt,
         LocalDateTime birthDate,
         Gender gender,
-        UserPrivacy privacy
-) {
+        UserPrivacy privacy,
+        long followerCount,
+        long followingCount
+) implements Serializable {
 
     public UserResponseDto(User user) {
-        this(user.getId(), user.getUsername(), user.getDisplayName(), user.getEmail(), user.getBio(), user.getRole(), user.isDisabled(), user.isEmailVerified(), user.getDisabledAt(), user.getBirthDate(), user.getGender(), user.getPrivacy());
+        this(user.getId(), user.getUsername(), user.getDisplayName(), user.getEmail(), user.getBio(), user.getRole(), user.isDisabled(), user.isEmailVerified(), user.getDisabledAt(), user.getBirthDate(), user.getGender(), user.getPrivacy(), user.getFollowerCount(), user.getFollowingCount());
     }
 }
@@ -0,0 +1,21 @@
+package com.yildirim.springrestapi.features.user.outbox;
+
+import com.yildirim.springrestapi.features.user.UserEvents;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.ResolvableTypeProvider;
+
+/**
+ * Published by {@link UserEventDispatcher} once the change that raised the event is committed, on a dispatcher thread.
+ * Listeners declare the event they want through the type parameter, e.g.
+ * {@code @EventListener void on(DispatchedUserEvent<UserEvents.PasswordChangedEvent> dispatched)}.
+ * <p>
+ * Delivery is at least once, so a listener may see the same {@link #outboxId()} more than once and has to be
+ * idempotent. Events of the same user are dispatched in the order they were raised.
+ */
+public record DispatchedUserEvent<E extends UserEvents.UserEvent>(long outboxId, E event) implements ResolvableTypeProvider {
+
+    @Override
+    public ResolvableType getResolvableType() {
+        return ResolvableType.forClassWithGenerics(getClass(), ResolvableType.forInstance(event));
+    }
+}
@@ -0,0 +1,30 @@
+package com.yildirim.springrestapi.features.user.outbox;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The node currently allowed to drain the outbox, and until when. Rows are only written by {@link UserEventDispatcher}
+ * through JDBC.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(name = "outbox_lease")
+public class DispatcherLease {
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false, length = 36)
+    private String owner;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,50 @@
+package com.yildirim.springrestapi.features.user.outbox;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A {@link com.yildirim.springrestapi.features.user.UserEvents.UserEvent} waiting to be dispatched.
+ * <p>
+ * Rows are written by {@link UserEventOutbox} in the transaction of the change itself, and deleted by
+ * {@link UserEventDispatcher} once every listener handled them. Only the user id and the event type are stored, the
+ * user is loaded again when the event is dispatched.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(
+        name = "user_event_outbox",
+        indexes = @Index(name = "idx_outbox_user", columnList = "user_id, id")
+)
+public class OutboxEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private UserEventType type;
+
+    /**
+     * Failed dispatch attempts so far
+     */
+    private int attempts;
+
+    /**
+     * Set once the event ran out of attempts, it's kept for inspection but no longer holds back the user's later events
+     */
+    private boolean failed;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+}
@@ -0,0 +1,270 @@
+package com.yildirim.springrestapi.features.user.outbox;
+
+import com.yildirim.springrestapi.features.user.User;
+import com.yildirim.springrestapi.features.user.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the {@link OutboxEntry} table in batches and publishes each event as a {@link DispatchedUserEvent}.
+ * <p>
+ * A batch is grouped by user. Every user's events are dispatched in order on their own virtual thread, so a slow
+ * listener only holds back the events of that user. Dispatched rows are deleted in one batch once the listeners
+ * return, so a crash in between dispatches them again: delivery is at least once.
+ * <p>
+ * When a listener throws, the event is retried with exponential backoff and the user's later events wait behind it.
+ * After {@code application.users.outbox.max-attempts} the event is marked as failed and left in the table, and the
+ * user's later events go ahead.
+ * <p>
+ * The dispatcher is woken up after every commit that wrote an event, and also polls the table to pick up retries and
+ * events left over by a restart. With several nodes only the one holding the {@link DispatcherLease} drains the table,
+ * so the same rows are never dispatched by two nodes at once and every user's order holds. The lease is renewed
+ * before each batch and taken over by another node once it expires, for example when its holder dies. A batch has to
+ * finish well within {@code application.users.outbox.lease-duration}, and the nodes' clocks have to agree to within
+ * a fraction of it.
+ */
+@Component
+public class UserEventDispatcher implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(UserEventDispatcher.class);
+    // Users with an event waiting for a retry are skipped entirely, so their later events can't overtake it
+    private static final String SELECT_PENDING = """
+            select id, user_id, type, attempts from user_event_outbox o
+            where o.failed = false and o.user_id not in (
+                select w.user_id from user_event_outbox w where w.failed = false and w.next_attempt_at > ?
+            )
+            order by o.id
+            limit ?
+            """;
+    private static final String DELETE = "delete from user_event_outbox where id = ?";
+    private static final String RETRY = "update user_event_outbox set attempts = ?, failed = ?, next_attempt_at = ? where id = ?";
+    private static final String LEASE_NAME = "user-event-outbox";
+    private static final String RENEW_LEASE = "update outbox_lease set owner = ?, expires_at = ? where name = ? and (owner = ? or expires_at < ?)";
+    private static final String CREATE_LEASE = """
+            insert into outbox_lease (name, owner, expires_at)
+            select ?, ?, ? where not exists (select 1 from outbox_lease where name = ?)
+            """;
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+    private static final RowMapper<PendingEvent> ROW_MAPPER = (rs, rowNum) -> new PendingEvent(
+            rs.getLong("id"),
+            rs.getString("user_id"),
+            UserEventType.valueOf(rs.getString("type")),
+            rs.getInt("attempts")
+    );
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher publisher;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // Non-zero while a drain is running, a wake-up during the drain makes it go around once more
+    private final AtomicInteger wakeUps = new AtomicInteger();
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration leaseDuration;
+    private final Counter dispatched;
+    private final Counter retried;
+    private final Counter failed;
+
+    public UserEventDispatcher(
+            JdbcTemplate jdbcTemplate,
+            UserRepository userRepository,
+            ApplicationEventPublisher publisher,
+            MeterRegistry meterRegistry,
+            @Value("${application.users.outbox.batch-size:100}") int batchSize,
+            @Value("${application.users.outbox.max-attempts:10}") int maxAttempts,
+            @Value("${application.users.outbox.retry-backoff:PT5S}") Duration retryBackoff,
+            @Value("${application.users.outbox.lease-duration:PT1M}") Duration leaseDuration
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.publisher = publisher;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.leaseDuration = leaseDuration;
+        this.dispatched = outcomeCounter(meterRegistry, "dispatched");
+        this.retried = outcomeCounter(meterRegistry, "retried");
+        this.failed = outcomeCounter(meterRegistry, "failed");
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("users.outbox.events")
+                .description("User events taken from the outbox, by dispatch outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts draining the outbox on a virtual thread, unless a drain is already running
+     */
+    public void wakeUp() {
+        if (wakeUps.getAndIncrement() == 0) {
+            executor.execute(this::drain);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.users.outbox.poll-interval:PT10S}")
+    public void poll() {
+        wakeUp();
+    }
+
+    private void drain() {
+        int seen = wakeUps.get();
+        try {
+            while (true) {
+                int taken;
+                do {
+                    taken = dispatchBatch();
+                    // A full batch means there may be more
+                } while (taken == batchSize);
+                if (wakeUps.compareAndSet(seen, 0)) {
+                    return;
+                }
+                seen = wakeUps.get();
+            }
+        } catch (RuntimeException | InterruptedException e) {
+            log.warn("Could not drain the user event outbox, retrying on the next poll", e);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            wakeUps.set(0);
+        }
+    }
+
+    /**
+     * Takes or renews the dispatcher lease
+     *
+     * @return false if another node holds it
+     */
+    private boolean holdLease(LocalDateTime now) {
+        final Timestamp expiresAt = Timestamp.valueOf(now.plus(leaseDuration));
+        if (jdbcTemplate.update(RENEW_LEASE, nodeId, expiresAt, LEASE_NAME, nodeId, Timestamp.valueOf(now)) == 1) {
+            return true;
+        }
+        try {
+            return jdbcTemplate.update(CREATE_LEASE, LEASE_NAME, nodeId, expiresAt, LEASE_NAME) == 1;
+        } catch (DuplicateKeyException e) {
+            // Another node created it first
+            return false;
+        }
+    }
+
+    private int dispatchBatch() throws InterruptedException {
+        final LocalDateTime now = LocalDateTime.now();
+        if (!holdLease(now)) {
+            return 0;
+        }
+        final List<PendingEvent> events = jdbcTemplate.query(SELECT_PENDING, ROW_MAPPER, Timestamp.valueOf(now), batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        final Map<String, List<PendingEvent>> eventsByUser = events.stream()
+                .collect(Collectors.groupingBy(PendingEvent::userId, LinkedHashMap::new, Collectors.toList()));
+        final Map<String, User> users = userRepository.findAllById(eventsByUser.keySet()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        final List<Callable<Outcome>> tasks = new ArrayList<>(eventsByUser.size());
+        eventsByUser.forEach((userId, userEvents) -> tasks.add(() -> dispatchInOrder(users.get(userId), userEvents)));
+
+        final List<Object[]> deletes = new ArrayList<>(events.size());
+        final List<Object[]> retries = new ArrayList<>();
+        for (Future<Outcome> future : executor.invokeAll(tasks)) {
+            final Outcome outcome;
+            try {
+                outcome = future.get();
+            } catch (ExecutionException e) {
+                // dispatchInOrder catches what the listeners throw, the user's events are simply taken again
+                log.error("Could not dispatch user events", e.getCause());
+                continue;
+            }
+            outcome.dispatched().forEach(id -> deletes.add(new Object[]{id}));
+            if (outcome.failed() != null) {
+                retries.add(retry(outcome.failed(), now));
+            }
+        }
+
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE, deletes);
+        }
+        if (!retries.isEmpty()) {
+            jdbcTemplate.batchUpdate(RETRY, retries);
+        }
+        return events.size();
+    }
+
+    /**
+     * Dispatches the user's events in order, stopping at the first one a listener fails on
+     */
+    private Outcome dispatchInOrder(User user, List<PendingEvent> events) {
+        final List<Long> dispatchedIds = new ArrayList<>(events.size());
+        for (PendingEvent event : events) {
+            // The user was deleted since, there is nobody left to notify about
+            if (user != null) {
+                try {
+                    publisher.publishEvent(new DispatchedUserEvent<>(event.id(), event.type().toEvent(user)));
+                } catch (RuntimeException e) {
+                    log.warn("Could not dispatch {} event {} of user {}", event.type(), event.id(), event.userId(), e);
+                    return new Outcome(dispatchedIds, event);
+                }
+            }
+            dispatchedIds.add(event.id());
+            dispatched.increment();
+        }
+        return new Outcome(dispatchedIds, null);
+    }
+
+    private Object[] retry(PendingEvent event, LocalDateTime now) {
+        final int attempts = event.attempts() + 1;
+        final boolean giveUp = attempts >= maxAttempts;
+        if (giveUp) {
+            log.error("Giving up on {} event {} of user {} after {} attempts", event.type(), event.id(), event.userId(), attempts);
+            failed.increment();
+        } else {
+            retried.increment();
+        }
+
+        final Duration backoff = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        final LocalDateTime nextAttemptAt = now.plus(backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff);
+        return new Object[]{attempts, giveUp, Timestamp.valueOf(nextAttemptAt), event.id()};
+    }
+
+    @Override
+    public void destroy() {
+        // Waits for a running drain, rows it doesn't get to are dispatched after the restart
+        executor.close();
+    }
+
+    private record PendingEvent(long id, String userId, UserEventType type, int attempts) {
+    }
+
+    private record Outcome(List<Long> dispatched, PendingEvent failed) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.yildirim.springrestapi.features.user.outbox;
+
+import com.yildirim.springrestapi.features.user.UserEvents;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Writes every {@link UserEvents.UserEvent} to the {@link OutboxEntry} table as it is published, in the transaction
+ * that made the change, so the event is stored if and only if the change is committed.
+ * <p>
+ * The row is inserted through JDBC on the transaction's connection, which also works for events published by
+ * {@link com.yildirim.springrestapi.features.user.UserAuditListener} while Hibernate is flushing. Once the transaction
+ * commits the {@link UserEventDispatcher} is woken up to dispatch it.
+ */
+@Component
+public class UserEventOutbox {
+    private static final String INSERT = """
+            insert into user_event_outbox (user_id, type, attempts, failed, created_at, next_attempt_at)
+            values (?, ?, 0, false, ?, ?)
+            """;
+    private final JdbcTemplate jdbcTemplate;
+    private final UserEventDispatcher dispatcher;
+
+    public UserEventOutbox(JdbcTemplate jdbcTemplate, UserEventDispatcher dispatcher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dispatcher = dispatcher;
+    }
+
+    @EventListener
+    public void onUserEvent(UserEvents.UserEvent event) {
+        final Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(INSERT, event.user().getId(), UserEventType.of(event).name(), now, now);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommittedUserEvent(UserEvents.UserEvent event) {
+        dispatcher.wakeUp();
+    }
+}
@@ -0,0 +1,40 @@
+package com.yildirim.springrestapi.features.user.outbox;
+
+import com.yildirim.springrestapi.features.user.DeviceInfo;
+import com.yildirim.springrestapi.features.user.User;
+import com.yildirim.springrestapi.features.user.UserEvents;
+
+/**
+ * The stored form of each {@link UserEvents.UserEvent}
+ */
+public enum UserEventType {
+    EMAIL_UPDATED,
+    REGISTERED,
+    USERNAME_UPDATED,
+    UPDATED,
+    LOGIN_FROM_NEW_DEVICE,
+    PASSWORD_CHANGED;
+
+    public static UserEventType of(UserEvents.UserEvent event) {
+        return switch (event) {
+            case UserEvents.EmailUpdatedEvent e -> EMAIL_UPDATED;
+            case UserEvents.RegisteredEvent e -> REGISTERED;
+            case UserEvents.UsernameUpdatedEvent e -> USERNAME_UPDATED;
+            case UserEvents.UpdatedEvent e -> UPDATED;
+            case UserEvents.LoginFromNewDeviceEvent e -> LOGIN_FROM_NEW_DEVICE;
+            case UserEvents.PasswordChangedEvent e -> PASSWORD_CHANGED;
+        };
+    }
+
+    public UserEvents.UserEvent toEvent(User user) {
+        return switch (this) {
+            case EMAIL_UPDATED -> new UserEvents.EmailUpdatedEvent(user);
+            case REGISTERED -> new UserEvents.RegisteredEvent(user);
+            case USERNAME_UPDATED -> new UserEvents.UsernameUpdatedEvent(user);
+            case UPDATED -> new UserEvents.UpdatedEvent(user);
+            // DeviceInfo doesn't carry anything yet
+            case LOGIN_FROM_NEW_DEVICE -> new UserEvents.LoginFromNewDeviceEvent(user, new DeviceInfo());
+            case PASSWORD_CHANGED -> new UserEvents.PasswordChangedEvent(user);
+        };
+    }
+}
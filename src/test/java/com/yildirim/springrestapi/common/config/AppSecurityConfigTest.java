@@ -0,0 +1,56 @@
+package com.yildirim.springrestapi.common.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that handlers acting on behalf of the authenticated user turn anonymous requests away with a 401.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class AppSecurityConfigTest {
+    private static final String CONTEXT_PATH = "/api/v1";
+    @Autowired
+    private MockMvc mockMvc;
+
+    private static MockHttpServletRequestBuilder withContextPath(MockHttpServletRequestBuilder request) {
+        return request.contextPath(CONTEXT_PATH);
+    }
+
+    @Test
+    void feedRequiresAuthentication() throws Exception {
+        mockMvc.perform(withContextPath(get(CONTEXT_PATH + "/posts/feed")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void likingRequiresAuthentication() throws Exception {
+        mockMvc.perform(withContextPath(post(CONTEXT_PATH + "/posts/1/like")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(withContextPath(delete(CONTEXT_PATH + "/posts/1/like")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void followingRequiresAuthentication() throws Exception {
+        mockMvc.perform(withContextPath(post(CONTEXT_PATH + "/users/someone/follow")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(withContextPath(delete(CONTEXT_PATH + "/users/someone/follow")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void relationshipsRequireAuthentication() throws Exception {
+        mockMvc.perform(withContextPath(post(CONTEXT_PATH + "/users/relationships")))
+                .andExpect(status().isUnauthorized());
+    }
+}
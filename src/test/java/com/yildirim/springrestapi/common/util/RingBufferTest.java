@@ -0,0 +1,74 @@
+package com.yildirim.springrestapi.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RingBufferTest {
+
+    @Test
+    void rejectsOffersOnceFull() {
+        final RingBuffer<Integer> buffer = new RingBuffer<>(5);
+        assertThat(buffer.capacity()).isEqualTo(8);
+
+        for (int i = 0; i < 8; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(8)).isFalse();
+
+        assertThat(buffer.poll()).isZero();
+        assertThat(buffer.offer(8)).isTrue();
+    }
+
+    @Test
+    void drainsInOfferOrder() {
+        final RingBuffer<Integer> buffer = new RingBuffer<>(16);
+        for (int i = 0; i < 10; i++) {
+            buffer.offer(i);
+        }
+
+        final List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drainTo(drained, 4)).isEqualTo(4);
+        assertThat(buffer.drainTo(drained, 100)).isEqualTo(6);
+        assertThat(drained).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void keepsEveryProducersOrderUnderContention() {
+        final int producers = 4;
+        final int perProducer = 50_000;
+        final RingBuffer<Long> buffer = new RingBuffer<>(64);
+        try (ExecutorService executor = Executors.newFixedThreadPool(producers)) {
+            for (int p = 0; p < producers; p++) {
+                final long producer = (long) p << 32;
+                executor.execute(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!buffer.offer(producer | i)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                });
+            }
+
+            final long[] last = {-1, -1, -1, -1};
+            int received = 0;
+            while (received < producers * perProducer) {
+                final Long value = buffer.poll();
+                if (value == null) {
+                    continue;
+                }
+                final int producer = (int) (value >>> 32);
+                assertThat(value & 0xFFFFFFFFL).isEqualTo(last[producer] + 1);
+                last[producer] = value & 0xFFFFFFFFL;
+                received++;
+            }
+        }
+    }
+}
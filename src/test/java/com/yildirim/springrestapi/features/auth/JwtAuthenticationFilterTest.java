@@ -0,0 +1,104 @@
+package com.yildirim.springrestapi.features.auth;
+
+import com.yildirim.springrestapi.common.cache.CacheInvalidationBus;
+import com.yildirim.springrestapi.features.auth.token.ParsedToken;
+import com.yildirim.springrestapi.features.auth.token.TokenService;
+import com.yildirim.springrestapi.features.user.User;
+import com.yildirim.springrestapi.features.user.UserEvents;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTest {
+    private static final String ACCESS_TOKEN = "access-token";
+    private TokenService tokenService;
+    private PrincipalCache principalCache;
+    private SecurityVersionRegistry securityVersions;
+    private JwtAuthenticationFilter filter;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        tokenService = mock(TokenService.class);
+        when(tokenService.isTokenValid(any(ParsedToken.class), any(UserDetails.class))).thenCallRealMethod();
+        principalCache = mock(PrincipalCache.class);
+        securityVersions = new SecurityVersionRegistry(mock(CacheInvalidationBus.class), 100, Duration.ofHours(3));
+        filter = new JwtAuthenticationFilter(tokenService, principalCache, securityVersions);
+
+        user = User.builder()
+                .id("user-1")
+                .username("alice")
+                .displayName("alice")
+                .email("alice@example.com")
+                .password("n/a")
+                .build();
+        when(principalCache.loadUserByUsername("alice")).thenAnswer(invocation -> new SecurityUser(user));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private void issue(Map<String, Object> claims) {
+        final Instant now = Instant.now();
+        final ParsedToken token = new ParsedToken("jti", "alice", now, now.plusSeconds(300), claims);
+        when(tokenService.validateToken(ACCESS_TOKEN)).thenReturn(Optional.of(token));
+    }
+
+    private boolean authenticates() throws Exception {
+        SecurityContextHolder.clearContext();
+        final MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(TokenService.AUTHORIZATION_HEADER, TokenService.BEARER + ACCESS_TOKEN);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication() != null;
+    }
+
+    private void changePassword() {
+        user.incrementSecurityVersion();
+        securityVersions.onPasswordChangedEvent(new UserEvents.PasswordChangedEvent(user));
+    }
+
+    @Test
+    void rejectsAccessTokenIssuedBeforePasswordChange() throws Exception {
+        issue(TokenPrincipal.claimsOf(user));
+        assertThat(authenticates()).isTrue();
+
+        changePassword();
+
+        assertThat(authenticates()).isFalse();
+    }
+
+    @Test
+    void acceptsAccessTokenIssuedAfterPasswordChange() throws Exception {
+        changePassword();
+        issue(TokenPrincipal.claimsOf(user));
+
+        assertThat(authenticates()).isTrue();
+    }
+
+    @Test
+    void rejectsTokenWithoutSecurityVersionOnceTheUserHasOne() throws Exception {
+        issue(Map.of());
+        assertThat(authenticates()).isTrue();
+
+        changePassword();
+
+        assertThat(authenticates()).isFalse();
+    }
+}
@@ -0,0 +1,48 @@
+package com.yildirim.springrestapi.features.auth.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryLoginRateLimiterTest {
+    private final LoginRateLimiter.Limit limit = new LoginRateLimiter.Limit(3, Duration.ofMinutes(1));
+    private final InMemoryLoginRateLimiter rateLimiter = new InMemoryLoginRateLimiter(new SimpleMeterRegistry(), 100);
+
+    @Test
+    void rejectsOnceTheBucketIsEmpty() {
+        assertThat(rateLimiter.tryAcquire("user:alice", limit)).isTrue();
+        assertThat(rateLimiter.tryAcquire("user:alice", limit)).isTrue();
+        assertThat(rateLimiter.tryAcquire("user:alice", limit)).isTrue();
+        assertThat(rateLimiter.tryAcquire("user:alice", limit)).isFalse();
+
+        // Other keys have their own bucket
+        assertThat(rateLimiter.tryAcquire("user:bob", limit)).isTrue();
+    }
+
+    @Test
+    void resetRefillsTheBucket() {
+        for (int i = 0; i < limit.capacity(); i++) {
+            rateLimiter.tryAcquire("user:alice", limit);
+        }
+        rateLimiter.reset("user:alice");
+
+        assertThat(rateLimiter.tryAcquire("user:alice", limit)).isTrue();
+    }
+
+    @Test
+    void refillsOneAttemptPerInterval() {
+        final var bucket = new InMemoryLoginRateLimiter.Bucket(limit);
+        final long start = System.nanoTime();
+        for (int i = 0; i < limit.capacity(); i++) {
+            assertThat(bucket.tryAcquire(limit, start)).isTrue();
+        }
+        assertThat(bucket.tryAcquire(limit, start)).isFalse();
+
+        final long oneIntervalLater = start + limit.refillInterval().toNanos();
+        assertThat(bucket.tryAcquire(limit, oneIntervalLater)).isTrue();
+        assertThat(bucket.tryAcquire(limit, oneIntervalLater)).isFalse();
+    }
+}
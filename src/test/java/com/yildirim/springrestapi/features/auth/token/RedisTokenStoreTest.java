@@ -0,0 +1,117 @@
+package com.yildirim.springrestapi.features.auth.token;
+
+import com.yildirim.springrestapi.features.user.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs {@link RedisTokenStore} against an in-process stand-in for Redis, which keeps keys and sets in plain maps.
+ */
+class RedisTokenStoreTest {
+    private final Map<String, String> values = new HashMap<>();
+    private final Map<String, Set<String>> sets = new HashMap<>();
+    private RedisTokenStore tokenStore;
+    private User user;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        SetOperations<String, String> setOperations = mock(SetOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+
+        when(redisTemplate.delete(anyString())).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            return values.remove(key) != null | sets.remove(key) != null;
+        });
+        when(redisTemplate.delete(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> keys = invocation.getArgument(0);
+            return keys.stream().filter(key -> values.remove(key) != null).count();
+        });
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    // Compare-and-set, same as RedisTokenStore.ROTATE_SCRIPT
+                    List<String> keys = invocation.getArgument(1);
+                    if (!invocation.getArgument(2).equals(values.get(keys.getFirst()))) {
+                        return 0L;
+                    }
+                    values.put(keys.getFirst(), invocation.getArgument(3));
+                    return 1L;
+                });
+        when(valueOperations.get(anyString()))
+                .thenAnswer(invocation -> values.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> values.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(valueOperations).set(anyString(), anyString(), any(Duration.class));
+        when(setOperations.add(anyString(), any(String[].class))).thenAnswer(invocation -> {
+            Object[] members = Arrays.copyOfRange(invocation.getArguments(), 1, invocation.getArguments().length);
+            Set<String> set = sets.computeIfAbsent(invocation.getArgument(0), key -> new HashSet<>());
+            return Arrays.stream(members).filter(member -> set.add((String) member)).count();
+        });
+        when(setOperations.members(anyString()))
+                .thenAnswer(invocation -> sets.get(invocation.<String>getArgument(0)));
+
+        tokenStore = new RedisTokenStore(redisTemplate);
+        user = User.builder()
+                .id(UUID.randomUUID().toString())
+                .username("redis-user")
+                .build();
+    }
+
+    private Instant inOneHour() {
+        return Instant.now().plus(1, ChronoUnit.HOURS);
+    }
+
+    @Test
+    void savedFamilyIsActiveUntilRevoked() {
+        tokenStore.save(user, "token-1", "family-1", TokenType.COOKIE, inOneHour());
+        assertThat(tokenStore.isActive("family-1", 0)).isTrue();
+
+        tokenStore.revoke("family-1");
+        assertThat(tokenStore.isActive("family-1", 0)).isFalse();
+    }
+
+    @Test
+    void expiredFamilyIsNotStored() {
+        tokenStore.save(user, "token-1", "family-1", TokenType.COOKIE, Instant.now().minus(1, ChronoUnit.MINUTES));
+        assertThat(tokenStore.isActive("family-1", 0)).isFalse();
+    }
+
+    @Test
+    void onlyTheLatestGenerationCanBeRotated() {
+        tokenStore.save(user, "token-1", "family-1", TokenType.COOKIE, inOneHour());
+
+        assertThat(tokenStore.rotate("family-1", 0, "token-2", inOneHour())).isTrue();
+        assertThat(tokenStore.isActive("family-1", 0)).isFalse();
+        assertThat(tokenStore.isActive("family-1", 1)).isTrue();
+        assertThat(tokenStore.rotate("family-1", 0, "token-3", inOneHour())).isFalse();
+    }
+
+    @Test
+    void revokeAllForUserRevokesEveryFamily() {
+        tokenStore.save(user, "token-1", "family-1", TokenType.COOKIE, inOneHour());
+        tokenStore.save(user, "token-2", "family-2", TokenType.COOKIE, inOneHour());
+
+        assertThat(tokenStore.revokeAllForUser(user)).isEqualTo(2);
+        assertThat(tokenStore.isActive("family-1", 0)).isFalse();
+        assertThat(tokenStore.isActive("family-2", 0)).isFalse();
+        assertThat(tokenStore.revokeAllForUser(user)).isZero();
+    }
+}
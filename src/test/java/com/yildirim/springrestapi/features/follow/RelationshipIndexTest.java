@@ -0,0 +1,84 @@
+package com.yildirim.springrestapi.features.follow;
+
+import com.yildirim.springrestapi.common.cache.CacheInvalidationBus;
+import com.yildirim.springrestapi.features.follow.dto.MutualFollowersDto;
+import com.yildirim.springrestapi.features.follow.dto.RelationshipDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class RelationshipIndexTest {
+    private RelationshipIndex relationshipIndex;
+    private CacheInvalidationBus invalidationBus;
+
+    @BeforeEach
+    void setUp() {
+        invalidationBus = mock(CacheInvalidationBus.class);
+        relationshipIndex = new RelationshipIndex(
+                mock(FollowRepository.class), mock(TransactionTemplate.class), invalidationBus, new SimpleMeterRegistry()
+        );
+        follow("alice", "bob");
+        follow("bob", "alice");
+        follow("alice", "carol");
+        follow("dave", "bob");
+        follow("dave", "carol");
+    }
+
+    private void follow(String followerId, String followingId) {
+        relationshipIndex.onFollowedEvent(new FollowEvents.FollowedEvent(followerId, followingId));
+    }
+
+    @Test
+    void answersRelationshipsInBulk() {
+        assertThat(relationshipIndex.relationships("alice", List.of("bob", "carol", "dave", "unknown")))
+                .containsEntry("bob", new RelationshipDto(true, true))
+                .containsEntry("carol", new RelationshipDto(true, false))
+                .containsEntry("dave", new RelationshipDto(false, false))
+                .containsEntry("unknown", new RelationshipDto(false, false));
+    }
+
+    @Test
+    void intersectsFollowers() {
+        assertThat(relationshipIndex.mutualFollowers("bob", "carol", 10))
+                .isEqualTo(new MutualFollowersDto(2, List.of("alice", "dave")));
+        assertThat(relationshipIndex.mutualFollowers("bob", "carol", 1).count()).isEqualTo(2);
+    }
+
+    @Test
+    void appliesUnfollows() {
+        relationshipIndex.onUnfollowedEvent(new FollowEvents.UnfollowedEvent("dave", "carol"));
+
+        assertThat(relationshipIndex.mutualFollowers("bob", "carol", 10))
+                .isEqualTo(new MutualFollowersDto(1, List.of("alice")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void appliesChangesCommittedOnOtherNodes() {
+        final ArgumentCaptor<Consumer<String>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(invalidationBus).subscribe(eq(RelationshipIndex.REGION), handler.capture());
+
+        handler.getValue().accept("-dave carol");
+        handler.getValue().accept("+erin carol");
+
+        assertThat(relationshipIndex.mutualFollowers("bob", "carol", 10))
+                .isEqualTo(new MutualFollowersDto(1, List.of("alice")));
+        assertThat(relationshipIndex.relationships("erin", List.of("carol")))
+                .containsEntry("carol", new RelationshipDto(true, false));
+    }
+
+    @Test
+    void publishesCommittedChanges() {
+        verify(invalidationBus).publish(RelationshipIndex.REGION, "+alice bob");
+    }
+}
@@ -0,0 +1,96 @@
+package com.yildirim.springrestapi.features.post;
+
+import com.yildirim.springrestapi.common.config.PersistenceConfig;
+import com.yildirim.springrestapi.features.post.dto.PostResponseDto;
+import com.yildirim.springrestapi.features.user.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that post reads are a single statement each, however many posts and authors are involved.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(PersistenceConfig.class)
+class PostRepositoryTest {
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private EntityManager entityManager;
+    private Statistics statistics;
+    private User author;
+    private Post likedPost;
+
+    @BeforeEach
+    void setUp() {
+        author = persistUser("author");
+        final List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final Post post = Post.builder().content("Post " + i).user(author).likeCount(i == 0 ? 3 : 0).build();
+            entityManager.persist(post);
+            posts.add(post);
+        }
+        likedPost = posts.getFirst();
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    private User persistUser(String username) {
+        final User user = User.builder()
+                .username(username)
+                .displayName(username)
+                .email(username + "@example.com")
+                .password("n/a")
+                .build();
+        entityManager.persist(user);
+        return user;
+    }
+
+    @Test
+    void findResponseByIdIsOneStatement() {
+        final PostResponseDto post = postRepository.findResponseById(likedPost.getId()).orElseThrow();
+
+        assertThat(post.username()).isEqualTo("author");
+        assertThat(post.likes()).isEqualTo(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void pageOfPostsIsOneStatement() {
+        final List<PostResponseDto> page = postRepository.findFirstPageByUserId(author.getId(), Limit.of(10));
+
+        assertThat(page).hasSize(5);
+        assertThat(page).extracting(PostResponseDto::userId).containsOnly(author.getId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void nextPageStartsAfterTheCursor() {
+        final List<PostResponseDto> first = postRepository.findFirstPageByUserId(author.getId(), Limit.of(2));
+        final PostResponseDto last = first.getLast();
+        final List<PostResponseDto> next = postRepository.findPageByUserId(
+                author.getId(), last.createdAt(), last.id(), Limit.of(10)
+        );
+
+        assertThat(next).hasSize(3);
+        assertThat(next).extracting(PostResponseDto::id).doesNotContainAnyElementsOf(
+                first.stream().map(PostResponseDto::id).toList()
+        );
+    }
+}
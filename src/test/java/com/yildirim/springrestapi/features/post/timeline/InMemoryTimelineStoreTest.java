@@ -0,0 +1,66 @@
+package com.yildirim.springrestapi.features.post.timeline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryTimelineStoreTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private final InMemoryTimelineStore timelineStore = new InMemoryTimelineStore(
+            new SimpleMeterRegistry(), 3, 100, Duration.ofDays(1)
+    );
+
+    private static TimelineEntry entry(long postId, int minutes) {
+        return new TimelineEntry(postId, NOW.plusMinutes(minutes));
+    }
+
+    @Test
+    void keepsOnlyTheNewestEntries() {
+        for (int i = 1; i <= 5; i++) {
+            timelineStore.push(List.of("alice"), entry(i, i));
+        }
+
+        assertThat(timelineStore.read("alice", null, 10))
+                .extracting(TimelineEntry::postId)
+                .containsExactly(5L, 4L, 3L);
+    }
+
+    @Test
+    void readsAfterTheCursor() {
+        timelineStore.push(List.of("alice", "bob"), entry(1, 0));
+        // Same timestamp, ordered by id
+        timelineStore.push(List.of("alice", "bob"), entry(2, 0));
+        timelineStore.push(List.of("alice"), entry(3, 1));
+
+        final List<TimelineEntry> first = timelineStore.read("alice", null, 2);
+        assertThat(first).extracting(TimelineEntry::postId).containsExactly(3L, 2L);
+        assertThat(timelineStore.read("alice", first.getLast(), 2))
+                .extracting(TimelineEntry::postId)
+                .containsExactly(1L);
+        assertThat(timelineStore.read("carol", null, 2)).isEmpty();
+    }
+
+    @Test
+    void removesOnlyTheGivenPosts() {
+        for (int i = 1; i <= 3; i++) {
+            timelineStore.push(List.of("alice", "bob"), entry(i, i));
+        }
+
+        timelineStore.remove("alice", List.of(1L, 3L, 42L));
+        // Freed room is taken by later pushes
+        timelineStore.push(List.of("alice"), entry(4, 4));
+        timelineStore.push(List.of("alice"), entry(5, 5));
+
+        assertThat(timelineStore.read("alice", null, 10))
+                .extracting(TimelineEntry::postId)
+                .containsExactly(5L, 4L, 2L);
+        assertThat(timelineStore.read("bob", null, 10))
+                .extracting(TimelineEntry::postId)
+                .containsExactly(3L, 2L, 1L);
+    }
+}